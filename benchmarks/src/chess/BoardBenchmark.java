@@ -0,0 +1,63 @@
+package chess;
+
+import boardgame.Position;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    private String phase;
+
+    private ChessBoard board;
+    // the occupied squares of the position and the pieces on them
+    private Position[] positions;
+    private ChessPiece[] pieces;
+    private int next;
+
+    @Setup
+    public void setup() {
+        board = new ChessMatch(Positions.fen(phase)).getBoard();
+        List<Position> occupied = new ArrayList<>();
+        List<ChessPiece> list = new ArrayList<>();
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getColumns(); j++) {
+                ChessPiece p = board.piece(i, j);
+                if (p != null) {
+                    occupied.add(new Position(i, j));
+                    list.add(p);
+                }
+            }
+        }
+        positions = occupied.toArray(new Position[0]);
+        pieces = list.toArray(new ChessPiece[0]);
+    }
+
+    @Benchmark
+    public void pieceScan(Blackhole bh) {
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getColumns(); j++) {
+                bh.consume(board.piece(i, j));
+            }
+        }
+    }
+
+    // lifts one of the position's pieces and puts it back, cycling through all of them
+    @Benchmark
+    public Object removeAndPlacePiece() {
+        int i = next++ % positions.length;
+        Object removed = board.removePiece(positions[i]);
+        board.placePiece(pieces[i], positions[i]);
+        return removed;
+    }
+}
@@ -0,0 +1,66 @@
+package chess;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    private String phase;
+
+    private ChessMatch chessMatch;
+    private int[] moves;
+    private int moveCount;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        chessMatch = new ChessMatch(Positions.fen(phase));
+        moves = new int[Move.MAX_MOVES];
+        moveCount = chessMatch.generateMoves(moves);
+    }
+
+    @Benchmark
+    public Object performChessMove() {
+        int move = moves[next++ % moveCount];
+        ChessPiece captured = chessMatch.performChessMove(
+                Positions.chessPosition(Move.from(move)), Positions.chessPosition(Move.to(move)));
+        chessMatch.undoMove();
+        return captured;
+    }
+
+    @Benchmark
+    public Object makeAndUndoMove() {
+        int move = moves[next++ % moveCount];
+        ChessPiece captured = chessMatch.makeMove(move);
+        chessMatch.undoMove();
+        return captured;
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return chessMatch.generateMoves(moves);
+    }
+
+    @Benchmark
+    public boolean testCheck() {
+        return chessMatch.testCheck(chessMatch.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public boolean testCheckmate() {
+        return chessMatch.testCheckmate(chessMatch.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public Object getPieces() {
+        return chessMatch.getPieces();
+    }
+}
@@ -0,0 +1,53 @@
+package chess;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    private String phase;
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    private PieceType type;
+
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setup() {
+        ChessMatch chessMatch = new ChessMatch(Positions.fen(phase));
+        List<ChessPiece> list = new ArrayList<>();
+        for (ChessPiece[] row : chessMatch.getPieces()) {
+            for (ChessPiece p : row) {
+                if (p != null && p.getType() == type) {
+                    list.add(p);
+                }
+            }
+        }
+        pieces = list.toArray(new ChessPiece[0]);
+    }
+
+    @Benchmark
+    public void possibleMoves(Blackhole bh) {
+        for (ChessPiece p : pieces) {
+            bh.consume(p.possibleMoves());
+        }
+    }
+
+    @Benchmark
+    public void moves(Blackhole bh) {
+        for (ChessPiece p : pieces) {
+            bh.consume(p.moves());
+        }
+    }
+}
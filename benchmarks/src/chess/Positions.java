@@ -0,0 +1,25 @@
+package chess;
+
+public class Positions {
+
+    public static final String OPENING = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+    public static final String MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+    public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    public static String fen(String phase) {
+        switch (phase) {
+            case "opening":
+                return OPENING;
+
+            case "middlegame":
+                return MIDDLEGAME;
+
+            default:
+                return ENDGAME;
+        }
+    }
+
+    public static ChessPosition chessPosition(int square) {
+        return new ChessPosition((char) ('A' + (square & 7)), (square >>> 3) + 1);
+    }
+}
@@ -0,0 +1,59 @@
+package application;
+
+import chess.ChessMatch;
+import chess.book.BookBuilder;
+import chess.book.OpeningBook;
+import chess.store.GameStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+public class BuildBook {
+
+    // usage: BuildBook <games.pgn|games.bin> <book.bin> [maxPlies] [minGames] [threads]
+    //        builds an opening book from a PGN archive or a game store, then times book probes
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BuildBook <games.pgn|games.bin> <book.bin> [maxPlies] [minGames] [threads]");
+            return;
+        }
+
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        int maxPlies = (args.length > 2) ? Integer.parseInt(args[2]) : 24;
+        int minGames = (args.length > 3) ? Integer.parseInt(args[3]) : 2;
+        int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BookBuilder builder = new BookBuilder(maxPlies, minGames, pool);
+        long start = System.nanoTime();
+        long entries;
+        if (args[0].endsWith(".pgn")) {
+            entries = builder.build(input, output);
+        }
+        else {
+            try (GameStore store = new GameStore(input)) {
+                entries = builder.build(store, output);
+            }
+        }
+        pool.shutdown();
+        System.out.printf("Wrote %,d book entries in %.3f s with %d threads%n",
+                entries, (System.nanoTime() - start) / 1e9, threads);
+
+        try (OpeningBook book = new OpeningBook(output)) {
+            ChessMatch match = new ChessMatch();
+            int probes = 1_000_000;
+            long found = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < probes; i++) {
+                if (book.find(match.positionKey() + (i & 1)) >= 0) {
+                    found++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d probes (%,d hits) in %.3f s (%,.0f probes/s)%n", probes, found, seconds, probes / seconds);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package application;
+
+import chess.ChessMatch;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+import chess.tablebase.TablebaseReport;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+public class BuildTablebase {
+
+    private static final String[] POSITIONS = {
+            "8/8/8/4k3/8/8/8/KQ6 w - - 0 1",
+            "8/8/8/4k3/8/8/8/KR6 w - - 0 1",
+            "8/8/8/8/8/4k3/4P3/4K3 w - - 0 1",
+            "7k/8/8/8/8/8/8/KBN5 w - - 0 1",
+            "8/8/8/3k4/8/8/8/KQ5r w - - 0 1",
+    };
+
+    // usage: BuildTablebase <directory> <signature>... generates the tables, e.g. KQK KRK KPK KBNK,
+    //        then probes a few positions and times the probes
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BuildTablebase <directory> [signature...]");
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]), pool);
+        for (int i = 1; i < args.length; i++) {
+            for (TablebaseReport report : generator.generate(args[i])) {
+                System.out.println(report);
+            }
+        }
+        pool.shutdown();
+
+        Tablebase tablebase = generator.getTablebase();
+        int probes = 1_000_000;
+        for (String fen : POSITIONS) {
+            ChessMatch match = new ChessMatch(fen);
+            int result = tablebase.probe(match);
+            long start = System.nanoTime();
+            for (int i = 0; i < probes; i++) {
+                result = tablebase.probe(match);
+            }
+            double nanos = (double) (System.nanoTime() - start) / probes;
+            System.out.printf("%-36s %-16s %.1f ns/probe%n", fen, Tablebase.toString(result), nanos);
+        }
+        tablebase.close();
+    }
+}
@@ -0,0 +1,210 @@
+package application;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Fen;
+import chess.Move;
+import chess.server.ChessServer;
+import chess.server.Protocol;
+import chess.store.CompactMove;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+// Plays random games against a server. Every connection keeps all of its matches busy: as soon
+// as the answer to a move arrives, the next move of that match is sent, so a connection has one
+// request in flight per match. Latency is the time from sending a move to reading its answer.
+public class LoadGenerator {
+
+    private static final ChessSnapshot INITIAL_POSITION = Fen.parse(Fen.INITIAL_POSITION);
+    private static final int MAX_PLIES = 200;
+    // every match can have a request in flight; they must all fit in the server's buffers
+    private static final int MAX_MATCHES_PER_CONNECTION = 4096;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+
+    // usage: LoadGenerator [connections [matches per connection [seconds [host:port]]]]
+    // without an address a server with one worker per core is started in this process
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connections = (args.length >= 1) ? Integer.parseInt(args[0]) : 16;
+        int matches = (args.length >= 2) ? Integer.parseInt(args[1]) : 1024;
+        int seconds = (args.length >= 3) ? Integer.parseInt(args[2]) : 10;
+        if (matches < 1 || matches > MAX_MATCHES_PER_CONNECTION) {
+            System.out.println("Matches per connection must be between 1 and " + MAX_MATCHES_PER_CONNECTION);
+            return;
+        }
+
+        ChessServer server = null;
+        InetSocketAddress address;
+        if (args.length >= 4) {
+            int colon = args[3].lastIndexOf(':');
+            address = new InetSocketAddress(args[3].substring(0, colon), Integer.parseInt(args[3].substring(colon + 1)));
+        }
+        else {
+            server = new ChessServer(new InetSocketAddress("127.0.0.1", 0), Runtime.getRuntime().availableProcessors());
+            server.start();
+            address = server.getAddress();
+        }
+
+        long start = System.nanoTime();
+        long measureStart = start + WARMUP_NANOS;
+        long deadline = measureStart + seconds * 1_000_000_000L;
+        Client[] clients = new Client[connections];
+        Thread[] threads = new Thread[connections];
+        for (int i = 0; i < connections; i++) {
+            clients[i] = new Client(address, matches, measureStart, deadline, i);
+            threads[i] = new Thread(clients[i], "load-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long count = 0;
+        long games = 0;
+        for (Client client : clients) {
+            if (client.error != null) {
+                System.out.println("Connection failed: " + client.error);
+            }
+            count += client.count;
+            games += client.games;
+        }
+        long[] latencies = new long[(int) count];
+        int n = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, n, client.count);
+            n += client.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%d connection(s) x %d match(es) = %,d concurrent matches%n", connections, matches,
+                (long) connections * matches);
+        System.out.printf("%,d moves and %,d finished games in %d s: %,.0f moves/s%n",
+                count, games, seconds, count / (double) seconds);
+        System.out.printf("Move latency: p50 %s  p99 %s  p999 %s  max %s%n", micros(latencies, 0.5),
+                micros(latencies, 0.99), micros(latencies, 0.999), micros(latencies, 1.0));
+
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static String micros(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return String.format("%.1f us", sorted[Math.max(index, 0)] / 1e3);
+    }
+
+    private static class Client implements Runnable {
+
+        private final InetSocketAddress address;
+        private final long measureStart;
+        private final long deadline;
+        private final ChessMatch[] matches;
+        private final long[] sent;
+        private final int[] moves = new int[Move.MAX_MOVES];
+        private final Random random;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(1 << 16);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(1 << 16);
+
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private long games;
+        private Exception error;
+
+
+        Client(InetSocketAddress address, int matches, long measureStart, long deadline, long seed) {
+            this.address = address;
+            this.measureStart = measureStart;
+            this.deadline = deadline;
+            this.matches = new ChessMatch[matches];
+            this.sent = new long[matches];
+            this.random = new Random(seed);
+        }
+
+
+        @Override
+        public void run() {
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                for (int id = 0; id < matches.length; id++) {
+                    matches[id] = new ChessMatch(INITIAL_POSITION);
+                    Protocol.putFrame(out, Protocol.NEW_MATCH, 0, (short) 0, id);
+                }
+                flush(channel);
+
+                // after the deadline answers are still read, but no new requests are sent
+                int outstanding = matches.length;
+                while (outstanding > 0) {
+                    if (channel.read(in) < 0) {
+                        throw new EOFException("Server closed the connection.");
+                    }
+                    in.flip();
+                    long now = System.nanoTime();
+                    while (in.remaining() >= Protocol.FRAME_SIZE) {
+                        int index = in.position();
+                        outstanding--;
+                        if (answer(Protocol.op(in, index), Protocol.status(in, index), Protocol.match(in, index), now)) {
+                            outstanding++;
+                        }
+                        in.position(index + Protocol.FRAME_SIZE);
+                    }
+                    in.compact();
+                    flush(channel);
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        // handles one answer and queues the next request of its match, if any
+        private boolean answer(int op, int status, int id, long now) {
+            if (status >= Protocol.ILLEGAL_MOVE) {
+                throw new IllegalStateException("Match " + id + ": " + Protocol.toString(status));
+            }
+            if (op == Protocol.MOVE && now >= measureStart && now < deadline) {
+                record(now - sent[id]);
+            }
+            if (now >= deadline) {
+                return false;
+            }
+
+            ChessMatch match = matches[id];
+            if (Protocol.isFinal(status) || match.getHistory().size() >= MAX_PLIES) {
+                games += Protocol.isFinal(status) ? 1 : 0;
+                match.load(INITIAL_POSITION);
+                Protocol.putFrame(out, Protocol.NEW_MATCH, 0, (short) 0, id);
+                return true;
+            }
+            int move = moves[random.nextInt(match.generateMoves(moves))];
+            match.makeMove(move);
+            Protocol.putFrame(out, Protocol.MOVE, 0, CompactMove.encode(move), id);
+            sent[id] = System.nanoTime();
+            return true;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        private void flush(SocketChannel channel) throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+}
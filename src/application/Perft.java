@@ -0,0 +1,140 @@
+package application;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.metrics.Metrics;
+
+public class Perft {
+
+    // name, FEN and the published leaf counts as depth:nodes
+    private static final String[][] POSITIONS = {
+            {"Initial position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    "1:20", "2:400", "3:8902", "4:197281", "5:4865609"},
+            {"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    "1:48", "2:2039", "3:97862", "4:4085603"},
+            {"Rook endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    "1:14", "2:191", "3:2812", "4:43238", "5:674624"},
+            {"Promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    "1:6", "2:264", "3:9467", "4:422333"},
+            {"Promotion with check", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    "1:44", "2:1486", "3:62379", "4:2103487"},
+            {"Middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    "1:46", "2:2079", "3:89890", "4:3894594"},
+            {"Illegal en passant (pin)", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", "6:1134888"},
+            {"Illegal en passant (diagonal)", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", "6:1015133"},
+            {"En passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", "6:1440467"},
+            {"Short castling gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", "6:661072"},
+            {"Long castling gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", "6:803711"},
+            {"Castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", "4:1274206"},
+            {"Castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", "4:1720476"},
+            {"Promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", "6:3821001"},
+            {"Discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", "5:1004658"},
+            {"Promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", "6:217342"},
+            {"Underpromote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", "6:92683"},
+            {"Self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", "6:2217"},
+            {"Stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", "7:567584"},
+            {"Double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", "4:23527"},
+    };
+
+    private final ChessMatch chessMatch;
+    private final int[][] moves;
+
+
+    public Perft(ChessMatch chessMatch, int maxDepth) {
+        this.chessMatch = chessMatch;
+        this.moves = new int[maxDepth + 1][Move.MAX_MOVES];
+    }
+
+
+    public long perft(int depth) {
+        int count = chessMatch.generateMoves(moves[depth]);
+        if (depth <= 1) {
+            return depth == 1 ? count : 1;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            chessMatch.makeMove(moves[depth][i]);
+            nodes += perft(depth - 1);
+            chessMatch.undoMove();
+        }
+        return nodes;
+    }
+
+    public long divide(int depth) {
+        int count = chessMatch.generateMoves(moves[depth]);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[depth][i];
+            chessMatch.makeMove(move);
+            long n = perft(depth - 1);
+            chessMatch.undoMove();
+
+            System.out.printf("%s: %d%n", Move.toUci(move), n);
+            nodes += n;
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length >= 2) {
+            int depth = Integer.parseInt(args[1]);
+            Perft perft = new Perft(new ChessMatch(args[0]), depth);
+
+            long start = System.nanoTime();
+            long nodes = perft.divide(depth);
+            report("Total", depth, nodes, System.nanoTime() - start);
+            System.out.print(Metrics.report());
+            return;
+        }
+
+        // the default suite is a regression gate: stop under ~5M nodes per position
+        long limit = (args.length == 1) ? Long.parseLong(args[0]) : 5_000_000L;
+        int failures = 0;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        for (String[] position : POSITIONS) {
+            for (int i = 2; i < position.length; i++) {
+                int separator = position[i].indexOf(':');
+                int depth = Integer.parseInt(position[i].substring(0, separator));
+                long expected = Long.parseLong(position[i].substring(separator + 1));
+                if (expected > limit) {
+                    break;
+                }
+
+                Perft perft = new Perft(new ChessMatch(position[1]), depth);
+                long start = System.nanoTime();
+                long nodes = perft.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+
+                if (nodes != expected) {
+                    failures++;
+                    System.out.printf("FAIL %s depth %d: expected %d, got %d%n",
+                            position[0], depth, expected, nodes);
+                }
+                else {
+                    report(position[0], depth, nodes, elapsed);
+                }
+            }
+        }
+
+        // only when run with -Dchess.metrics=true
+        System.out.print(Metrics.report());
+        double seconds = totalTime / 1e9;
+        System.out.printf("Suite: %,d nodes in %.3f s (%,.0f nodes/s)%n",
+                totalNodes, seconds, totalNodes / Math.max(seconds, 1e-9));
+        if (failures > 0) {
+            System.out.printf("%d perft check(s) failed.%n", failures);
+            System.exit(1);
+        }
+    }
+
+    private static void report(String name, int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-30s depth %d: %,12d nodes in %7.3f s (%,.0f nodes/s)%n",
+                name, depth, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,67 @@
+package application;
+
+import chess.ChessException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnWriter;
+import chess.pgn.San;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class PgnReplay {
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+
+    // usage: PgnReplay <games.pgn> [valid-games.pgn]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PgnReplay <games.pgn> [valid-games.pgn]");
+            return;
+        }
+
+        PgnWriter writer = null;
+        if (args.length >= 2) {
+            writer = new PgnWriter(FileChannel.open(Paths.get(args[1]),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        }
+
+        PgnGame game = new PgnGame();
+        San san = new San();
+        long games = 0;
+        long moves = 0;
+        long errors = 0;
+        long start = System.nanoTime();
+
+        try (PgnReader reader = new PgnReader(FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ))) {
+            while (reader.next(game)) {
+                games++;
+                try {
+                    game.replay(san);
+                    moves += game.getMoveCount();
+                    if (writer != null) {
+                        writer.write(game);
+                    }
+                }
+                catch (ChessException e) {
+                    errors++;
+                    if (errors <= MAX_REPORTED_ERRORS) {
+                        System.out.printf("Game %d: %s%n", games, e.getMessage());
+                    }
+                }
+            }
+        }
+        finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games, %,d moves, %,d invalid in %.3f s (%,.0f games/s, %,.0f moves/s)%n",
+                games, moves, errors, seconds, games / Math.max(seconds, 1e-9), moves / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,56 @@
+package application;
+
+import chess.ChessMatch;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.San;
+import chess.store.GameStore;
+import chess.store.GameStoreWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class PgnToStore {
+
+    // usage: PgnToStore <games.pgn> <games.bin> appends the legal games of the archive to the store,
+    //        then replays the whole store and reports the replay speed
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PgnToStore <games.pgn> <games.bin>");
+            return;
+        }
+
+        PgnGame game = new PgnGame();
+        San san = new San();
+        ChessMatch match = new ChessMatch();
+        long skipped = 0;
+        long start = System.nanoTime();
+
+        try (PgnReader reader = new PgnReader(FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ));
+             GameStoreWriter writer = new GameStoreWriter(Paths.get(args[1]))) {
+            while (reader.next(game)) {
+                if (writer.append(game, san, match) < 0) {
+                    skipped++;
+                }
+            }
+            System.out.printf("Stored %,d games (%,d skipped) in %.3f s%n",
+                    writer.size(), skipped, (System.nanoTime() - start) / 1e9);
+        }
+
+        try (GameStore store = new GameStore(Paths.get(args[1]))) {
+            start = System.nanoTime();
+            long plies = 0;
+            long checksum = 0;
+            for (long id = 0; id < store.size(); id++) {
+                store.replay(id, match);
+                plies += store.getPlies(id);
+                checksum ^= match.positionKey();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Replayed %,d games, %,d moves in %.3f s (%,.0f games/s, %,.0f moves/s), checksum %016x%n",
+                    store.size(), plies, seconds, store.size() / seconds, plies / seconds, checksum);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package application;
+
+import chess.pgn.ValidationPipeline;
+import chess.pgn.ValidationReport;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class PgnValidate {
+
+    // usage: PgnValidate <games.pgn> [threads]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PgnValidate <games.pgn> [threads]");
+            return;
+        }
+        int threads = (args.length >= 2) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ValidationPipeline pipeline = new ValidationPipeline(threads);
+        ValidationReport report = pipeline.validate(Paths.get(args[0]));
+        pipeline.shutdown();
+
+        for (String error : report.getErrors()) {
+            System.out.println(error);
+        }
+        System.out.printf("%d thread(s): %s%n", threads, report);
+    }
+}
@@ -2,42 +2,48 @@ package application;
 
 import chess.ChessException;
 import chess.ChessMatch;
-import chess.ChessPiece;
 import chess.ChessPosition;
-import chess.util.Util;
+import chess.Move;
+import chess.book.OpeningBook;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
 public class Program {
 
-    public static void main(String[] args) {
+    // an optional argument names an opening book whose suggestion is shown every turn
+    public static void main(String[] args) throws IOException {
 
+        OpeningBook book = (args.length > 0) ? new OpeningBook(Paths.get(args[0])) : null;
         Scanner sc = new Scanner(System.in);
         ChessMatch chessMatch = new ChessMatch();
-        ChessPiece[] captured = new ChessPiece[31];
 
-        while (!chessMatch.isCheckmate()) {
+        while (!chessMatch.isCheckmate() && !chessMatch.isStalemate()) {
             try {
-                UI.clearScreen();
-                UI.printMatch(chessMatch, captured);
+                UI.printMatch(chessMatch, (book != null) ? book.bestMove(chessMatch) : Move.NONE);
 
                 System.out.print("Source: ");
                 ChessPosition source = UI.readChessPosition(sc);
+                if (source == null) {
+                    chessMatch.takeBack();
+                    continue;
+                }
 
                 boolean[][] possibleMoves = chessMatch.possibleMoves(source);
 
-                UI.clearScreen();
-                UI.printBoard(chessMatch.getPieces(), possibleMoves);
+                UI.printPossibleMoves(possibleMoves);
 
                 System.out.print("Target: ");
                 ChessPosition target = UI.readChessPosition(sc);
-
-                ChessPiece capturedPiece = chessMatch.performChessMove(source, target);
-                if (capturedPiece != null) {
-                    captured[Util.getLength(captured)] = capturedPiece;
+                if (target == null) {
+                    chessMatch.takeBack();
+                    continue;
                 }
 
+                chessMatch.performChessMove(source, target);
+
                 if (chessMatch.getPromotedPawn() != null) {
                     System.out.print("Choose a promotion option [B/H/R/Q]: ");
                     String piece = sc.nextLine();
@@ -48,9 +54,10 @@ public class Program {
             catch (ChessException | InputMismatchException e) {
                 System.out.println(e.getMessage());
                 sc.nextLine();
+                // the message and the input echoed after it may have scrolled the frame
+                UI.clearScreen();
             }
         }
-        UI.clearScreen();
-        UI.printMatch(chessMatch, captured);
+        UI.printMatch(chessMatch);
     }
 }
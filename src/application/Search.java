@@ -0,0 +1,46 @@
+package application;
+
+import chess.ChessMatch;
+import chess.engine.Engine;
+import chess.engine.SearchResult;
+
+public class Search {
+
+    private static final String[][] POSITIONS = {
+            {"Initial position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"},
+            {"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"},
+            {"Middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"},
+            {"Rook endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"},
+            {"Mate in two", "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0"},
+    };
+
+
+    // usage: Search [depth [millis]] searches the bench positions,
+    //        Search <fen> <depth> [millis] searches a single position
+    public static void main(String[] args) {
+        if (args.length >= 2 && args[0].indexOf('/') >= 0) {
+            int depth = Integer.parseInt(args[1]);
+            long millis = (args.length >= 3) ? Long.parseLong(args[2]) : 0;
+            System.out.println(new Engine().search(new ChessMatch(args[0]), depth, millis));
+            return;
+        }
+
+        int depth = (args.length >= 1) ? Integer.parseInt(args[0]) : 6;
+        long millis = (args.length >= 2) ? Long.parseLong(args[1]) : 0;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        Engine engine = new Engine();
+        for (String[] position : POSITIONS) {
+            engine.getTable().clear();
+            SearchResult result = engine.search(new ChessMatch(position[1]), depth, millis);
+            totalNodes += result.getNodes();
+            totalTime += result.getNanos();
+            System.out.printf("%-20s %s%n", position[0], result);
+        }
+
+        double seconds = totalTime / 1e9;
+        System.out.printf("Bench: %,d nodes in %.3f s (%,.0f nodes/s)%n",
+                totalNodes, seconds, totalNodes / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,28 @@
+package application;
+
+import chess.server.ChessServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+public class Server {
+
+    // usage: Server [port [workers]]; prints the number of matches and moves every few seconds
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length >= 1) ? Integer.parseInt(args[0]) : 7000;
+        int workers = (args.length >= 2) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ChessServer server = new ChessServer(new InetSocketAddress(port), workers);
+        server.start();
+        System.out.printf("Listening on %s with %d worker(s)%n", server.getAddress(), workers);
+
+        long moves = 0;
+        while (true) {
+            Thread.sleep(5000);
+            long total = server.getMovesPlayed();
+            System.out.printf("%,d connection(s), %,d match(es), %,.0f moves/s%n",
+                    server.getConnections(), server.getMatches(), (total - moves) / 5.0);
+            moves = total;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package application;
+
+import chess.ChessMatch;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchResult;
+
+public class SmpScaling {
+
+    private static final String[] POSITIONS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "rnbqkb1r/pp1p1ppp/4pn2/2p5/2PP4/2N5/PP2PPPP/R1BQKBNR w KQkq - 0 4",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+
+    // usage: SmpScaling [depth [maxThreads]]; thread counts double from 1 up to maxThreads
+    public static void main(String[] args) {
+        int depth = (args.length >= 1) ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = (args.length >= 2) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Time to depth %d over %d positions (%d cores available)%n",
+                depth, POSITIONS.length, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %10s %8s %14s %14s %14s%n",
+                "threads", "time (s)", "speedup", "nodes", "nodes/s", "nodes/s/thread");
+
+        double baseTime = 0;
+        // warm up the JIT so the single thread baseline is not penalised
+        new ParallelSearch(1).search(new ChessMatch(POSITIONS[0]), depth - 1);
+
+        for (int threads = 1; threads <= maxThreads; threads = nextThreads(threads, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads);
+            long nodes = 0;
+            long nanos = 0;
+            for (String fen : POSITIONS) {
+                search.getTable().clear();
+                SearchResult result = search.search(new ChessMatch(fen), depth);
+                nodes += result.getNodes();
+                nanos += result.getNanos();
+            }
+            search.shutdown();
+
+            double seconds = nanos / 1e9;
+            if (threads == 1) {
+                baseTime = seconds;
+            }
+            double nps = nodes / Math.max(seconds, 1e-9);
+            System.out.printf("%8d %10.3f %8.2f %,14d %,14.0f %,14.0f%n",
+                    threads, seconds, baseTime / seconds, nodes, nps, nps / threads);
+        }
+    }
+
+    private static int nextThreads(int threads, int maxThreads) {
+        return (threads < maxThreads && threads * 2 > maxThreads) ? maxThreads : threads * 2;
+    }
+}
@@ -0,0 +1,147 @@
+package application;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// Draws on an ANSI terminal through a grid of cells, each a character and a style index.
+// Cells keep their content between frames, so a caller only changes what it needs to; flush()
+// compares the grid with what is on screen and writes the changed cells, moving the cursor only
+// where a run of changes starts. Each frame goes out in a single write of a reused buffer.
+class TerminalRenderer {
+
+    private static final String ESC = "\u001B[";
+    // rewriting this many unchanged cells is shorter than a cursor move over them
+    private static final int MAX_GAP = 4;
+
+    private final PrintStream out;
+    private final int rows;
+    private final int columns;
+    private final String[] styles;
+    private final char[] chars;
+    private final byte[] cellStyles;
+    // what the terminal currently shows
+    private final char[] shownChars;
+    private final byte[] shownStyles;
+    private final StringBuilder frame = new StringBuilder(1 << 12);
+    private byte[] bytes = new byte[1 << 12];
+    private boolean invalid = true;
+    // the style of the terminal while a frame is written
+    private int style;
+
+
+    // styles[i] is the escape sequence that sets style i after a reset; style 0 is the default
+    TerminalRenderer(PrintStream out, int rows, int columns, String[] styles) {
+        this.out = out;
+        this.rows = rows;
+        this.columns = columns;
+        this.styles = styles;
+        chars = new char[rows * columns];
+        cellStyles = new byte[rows * columns];
+        shownChars = new char[rows * columns];
+        shownStyles = new byte[rows * columns];
+        Arrays.fill(chars, ' ');
+    }
+
+
+    void put(int row, int column, char c, int style) {
+        int i = row * columns + column;
+        chars[i] = c;
+        cellStyles[i] = (byte) style;
+    }
+
+    // returns the column after the text
+    int print(int row, int column, CharSequence text, int style) {
+        int length = Math.min(text.length(), columns - column);
+        for (int i = 0; i < length; i++) {
+            put(row, column + i, text.charAt(i), style);
+        }
+        return column + length;
+    }
+
+    void setStyle(int row, int column, int style) {
+        cellStyles[row * columns + column] = (byte) style;
+    }
+
+    int getStyle(int row, int column) {
+        return cellStyles[row * columns + column];
+    }
+
+    // blanks the row from the column on
+    void clear(int row, int column) {
+        int start = row * columns;
+        Arrays.fill(chars, start + column, start + columns, ' ');
+        Arrays.fill(cellStyles, start + column, start + columns, (byte) 0);
+    }
+
+    // the next flush clears the screen and draws every cell
+    void invalidate() {
+        invalid = true;
+    }
+
+    // writes the changed cells, then leaves the cursor at the start of the given row with the
+    // screen below it cleared, which is where prompts and messages go
+    void flush(int cursorRow) {
+        frame.setLength(0);
+        if (invalid) {
+            frame.append(ESC).append('H').append(ESC).append("2J");
+            Arrays.fill(shownChars, ' ');
+            Arrays.fill(shownStyles, (byte) 0);
+            invalid = false;
+        }
+
+        style = 0;
+        for (int row = 0; row < rows; row++) {
+            int cursor = -1;
+            for (int column = 0; column < columns; column++) {
+                int i = row * columns + column;
+                if (chars[i] == shownChars[i] && cellStyles[i] == shownStyles[i]) {
+                    continue;
+                }
+                if (cursor >= 0 && column - cursor <= MAX_GAP) {
+                    for (int gap = cursor; gap < column; gap++) {
+                        append(row * columns + gap);
+                    }
+                }
+                else if (cursor != column) {
+                    moveTo(row, column);
+                }
+                append(i);
+                cursor = column + 1;
+                shownChars[i] = chars[i];
+                shownStyles[i] = cellStyles[i];
+            }
+        }
+        if (style != 0) {
+            frame.append(ESC).append("0m");
+        }
+        moveTo(cursorRow, 0);
+        frame.append(ESC).append('J');
+        write();
+    }
+
+    private void append(int i) {
+        if (cellStyles[i] != style) {
+            style = cellStyles[i];
+            frame.append(ESC).append("0m").append(styles[style]);
+        }
+        frame.append(chars[i]);
+    }
+
+    private void moveTo(int row, int column) {
+        frame.append(ESC).append(row + 1).append(';').append(column + 1).append('H');
+    }
+
+    // the frame is plain ASCII apart from what the cells hold; anything else is shown as '?'
+    private void write() {
+        int length = frame.length();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            char c = frame.charAt(i);
+            bytes[i] = (byte) (c < 128 ? c : '?');
+        }
+        out.write(bytes, 0, length);
+        out.flush();
+    }
+}
@@ -4,7 +4,9 @@ import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
-import chess.util.Util;
+import chess.Move;
+import chess.PieceList;
+import chess.PieceType;
 import org.w3c.dom.ls.LSOutput;
 
 import java.util.InputMismatchException;
@@ -31,11 +33,29 @@ public class UI {
     public static final String ANSI_CYAN_BACKGROUND = "\u001B[46m";
     public static final String ANSI_WHITE_BACKGROUND = "\u001B[47m";
 
+    // cell styles of the screen, indexes into STYLES
+    private static final int PLAIN = 0;
+    private static final int WHITE_PIECE = 1;
+    private static final int BLACK_PIECE = 2;
+    private static final int HIGHLIGHT = 4;
+    private static final String[] STYLES = {"", ANSI_YELLOW, ANSI_PURPLE, "", ANSI_GREEN_BACKGROUND,
+            ANSI_GREEN_BACKGROUND + ANSI_YELLOW, ANSI_GREEN_BACKGROUND + ANSI_PURPLE, ""};
+
+    private static final int BOARD_ROW = 1;
+    private static final int CAPTURED_ROW = 10;
+    private static final int STATUS_ROW = 14;
+    private static final int PROMPT_ROW = 16;
+
+    private static final TerminalRenderer screen = new TerminalRenderer(System.out, PROMPT_ROW, 48, STYLES);
+    private static final StringBuilder line = new StringBuilder();
+
+    // the next frame is drawn from a cleared screen, for when text printed outside the frame may
+    // have scrolled the terminal
     public static void clearScreen() {
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
+        screen.invalidate();
     }
 
+    // returns null when the player asks to take back the last move
     public static ChessPosition readChessPosition(Scanner sc) {
         try {
             String s = sc.nextLine();
@@ -43,6 +63,9 @@ public class UI {
             if (s.equals("exit")) {
                 System.exit(0);
             }
+            if (s.equals("undo")) {
+                return null;
+            }
 
             char column = s.charAt(0);
             int row = Integer.parseInt(s.substring(1));
@@ -50,104 +73,91 @@ public class UI {
         }
         catch (RuntimeException e){
             throw new InputMismatchException("Invalid combination. " +
-                    "Valid expressions range from A1 to H8.");
+                    "Valid expressions range from A1 to H8, or undo.");
         }
     }
 
-    public static void printMatch(ChessMatch chessMatch, ChessPiece[] captured) {
-        printBoard(chessMatch.getPieces());
-        printCapturedPieces(captured);
-        System.out.println("Round: " + chessMatch.getRound());
+    public static void printMatch(ChessMatch chessMatch) {
+        printMatch(chessMatch, Move.NONE);
+    }
+
+    // draws the match, with the book move if there is one, and leaves the cursor below it
+    public static void printMatch(ChessMatch chessMatch, int bookMove) {
+        drawBoard(chessMatch);
+        drawCapturedPieces(chessMatch.getCapturedPieces());
 
-        if (!chessMatch.isCheckmate()) {
-            System.out.printf("%ss' turn. ", chessMatch.getCurrentPlayer().toString());
+        line.setLength(0);
+        screen.clear(STATUS_ROW - 1, screen.print(STATUS_ROW - 1, 0, line.append("Round: ").append(chessMatch.getRound()), PLAIN));
+
+        line.setLength(0);
+        if (chessMatch.isStalemate()) {
+            line.append("Stalemate.");
+        }
+        else if (!chessMatch.isCheckmate()) {
+            line.append(chessMatch.getCurrentPlayer()).append("s' turn. ");
             if (chessMatch.isCheck()) {
-                System.out.print("Check.");
+                line.append("Check.");
             }
         }
         else {
-            System.out.println("Checkmate.");
-            System.out.printf("Winner: %s", chessMatch.getCurrentPlayer());
+            line.append("Checkmate.");
         }
-        System.out.println();
-    }
+        screen.clear(STATUS_ROW, screen.print(STATUS_ROW, 0, line, PLAIN));
 
-    public static void printBoard(ChessPiece[][] pieces){
-        System.out.println("  A B C D E F G H");
-        for (int i = 0; i < pieces.length; i++) {
-            System.out.print((i + 1) + " ");
-            for (int j = 0; j < pieces.length; j++) {
-                printPiece(pieces[i][j], false);
-            }
-            System.out.println();
+        line.setLength(0);
+        if (chessMatch.isCheckmate()) {
+            line.append("Winner: ").append(chessMatch.getWinner());
         }
-        System.out.println();
-    }
-
-    public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves) {
-        System.out.println("  A B C D E F G H");
-        for (int i = 0; i < pieces.length; i++) {
-            System.out.print((i + 1) + " ");
-            for (int j = 0; j < pieces.length; j++) {
-                printPiece(pieces[i][j], possibleMoves[i][j]);
-            }
-            System.out.println();
+        else if (bookMove != Move.NONE) {
+            line.append("Book move: ").append(Move.toString(bookMove));
         }
-        System.out.println();
-    }
+        screen.clear(STATUS_ROW + 1, screen.print(STATUS_ROW + 1, 0, line, PLAIN));
 
-    private static void printPiece(ChessPiece piece, boolean backgroundColor) {
-        if (backgroundColor) {
-            System.out.print(ANSI_GREEN_BACKGROUND);
-        }
+        screen.flush(PROMPT_ROW);
+    }
 
-        if (piece == null) {
-            System.out.print("-");
-        }
-        else {
-            switch (piece.getColor()) {
-                case WHITE:
-                    System.out.print(ANSI_YELLOW + piece);
-                    break;
-
-                case BLACK:
-                    System.out.print(ANSI_PURPLE + piece);
-                    break;
+    // highlights the given squares of the board drawn last; only the squares that change are redrawn
+    public static void printPossibleMoves(boolean[][] possibleMoves) {
+        for (int i = 0; i < possibleMoves.length; i++) {
+            for (int j = 0; j < possibleMoves[i].length; j++) {
+                int style = screen.getStyle(BOARD_ROW + i, 2 + 2 * j) & ~HIGHLIGHT;
+                screen.setStyle(BOARD_ROW + i, 2 + 2 * j, possibleMoves[i][j] ? style | HIGHLIGHT : style);
             }
         }
-        System.out.print(ANSI_RESET + " ");
+        screen.flush(PROMPT_ROW);
     }
 
-    private static void printCapturedPieces(ChessPiece[] captured) {
-        ChessPiece[] white = new ChessPiece[16];
-        ChessPiece[] black = new ChessPiece[16];
-        for (ChessPiece c : captured) {
-            if (c != null) {
-                if (c.getColor() == Color.WHITE) {
-                    white[Util.getLength(white)] = c;
+    private static void drawBoard(ChessMatch chessMatch) {
+        screen.print(0, 0, "  A B C D E F G H", PLAIN);
+        for (int i = 0; i < 8; i++) {
+            screen.put(BOARD_ROW + i, 0, (char) ('1' + i), PLAIN);
+            for (int j = 0; j < 8; j++) {
+                ChessPiece piece = chessMatch.piece(i * 8 + j);
+                if (piece == null) {
+                    screen.put(BOARD_ROW + i, 2 + 2 * j, '-', PLAIN);
                 }
                 else {
-                    black[Util.getLength(black)] = c;
+                    screen.put(BOARD_ROW + i, 2 + 2 * j, piece.toString().charAt(0),
+                            (piece.getColor() == Color.WHITE) ? WHITE_PIECE : BLACK_PIECE);
                 }
             }
         }
+    }
 
-        System.out.println("Captured pieces:");
-        System.out.print("White: [" + ANSI_YELLOW);
-        for (ChessPiece c : white) {
-            if (c != null) {
-                System.out.print(c);
-            }
-        }
-        System.out.println(ANSI_RESET + "]");
+    private static void drawCapturedPieces(PieceList captured) {
+        screen.print(CAPTURED_ROW, 0, "Captured pieces:", PLAIN);
+        drawPieces(CAPTURED_ROW + 1, "White: [", captured, Color.WHITE, WHITE_PIECE);
+        drawPieces(CAPTURED_ROW + 2, "Black: [", captured, Color.BLACK, BLACK_PIECE);
+    }
 
-        System.out.print("Black: [" + ANSI_PURPLE);
-        for (ChessPiece c : black) {
-            if (c != null) {
-                System.out.print(c);
+    private static void drawPieces(int row, String label, PieceList pieces, Color color, int style) {
+        int column = screen.print(row, 0, label, PLAIN);
+        for (PieceType type : PieceType.values()) {
+            for (int i = 0; i < pieces.size(color, type); i++) {
+                screen.put(row, column++, pieces.get(color, type, i).toString().charAt(0), style);
             }
         }
-        System.out.println(ANSI_RESET + "]");
-        System.out.println();
+        screen.put(row, column++, ']', PLAIN);
+        screen.clear(row, column);
     }
 }
@@ -8,13 +8,18 @@ public class Board {
 
 
     public Board(int rows, int columns) {
+        this(rows, columns, false);
+    }
+
+    // for a subclass that stores the pieces itself and overrides every method that reads or writes them
+    protected Board(int rows, int columns, boolean storesPieces) {
         if (rows < 1 || columns < 1) {
             throw new BoardException("Board error. " +
                     "It must have at least one row and column.");
         }
         this.rows = rows;
         this.columns = columns;
-        pieces = new Piece[rows][columns];
+        pieces = storesPieces ? null : new Piece[rows][columns];
     }
 
 
@@ -59,6 +64,10 @@ public class Board {
         return aux;
     }
 
+    protected static void setPosition(Piece piece, Position position) {
+        piece.position = position;
+    }
+
     public boolean positionExists(int row, int column) {
         return row >= 0 && row < rows && column >= 0 && column < columns;
     }
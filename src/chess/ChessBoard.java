@@ -0,0 +1,179 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+import chess.util.Attacks;
+import chess.util.Bitboard;
+
+public class ChessBoard extends Board {
+
+    private final long[][] bitboards = new long[2][6];
+    private final long[] occupancy = new long[2];
+    private long occupied;
+    private long key;
+    private int middlegame;
+    private int endgame;
+    private int phase;
+    private final ChessPiece[] squares = new ChessPiece[64];
+    private final int[] kingSquares = {-1, -1};
+
+    private static final Position[] POSITIONS = new Position[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = Bitboard.toPosition(square);
+        }
+    }
+
+
+    public ChessBoard() {
+        super(8, 8, true);
+    }
+
+
+    public long pieces(Color color, PieceType type) {
+        return bitboards[color.ordinal()][type.ordinal()];
+    }
+
+    public long occupancy(Color color) {
+        return occupancy[color.ordinal()];
+    }
+
+    public long occupancy() {
+        return occupied;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getMiddlegame() { return middlegame; }
+    public int getEndgame() { return endgame; }
+    public int getPhase() { return phase; }
+
+    public ChessPiece piece(int square) {
+        return squares[square];
+    }
+
+    // -1 when the color has no king on the board
+    public int getKingSquare(Color color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    public long attackers(int square, Color color, long occupancy) {
+        long[] pieces = bitboards[color.ordinal()];
+        long queens = pieces[PieceType.QUEEN.ordinal()];
+        return (Attacks.pawn(enemy(color), square) & pieces[PieceType.PAWN.ordinal()]) |
+                (Attacks.knight(square) & pieces[PieceType.KNIGHT.ordinal()]) |
+                (Attacks.king(square) & pieces[PieceType.KING.ordinal()]) |
+                (Attacks.rook(square, occupancy) & (pieces[PieceType.ROOK.ordinal()] | queens)) |
+                (Attacks.bishop(square, occupancy) & (pieces[PieceType.BISHOP.ordinal()] | queens));
+    }
+
+    public boolean isSquareAttacked(int square, Color color) {
+        return isSquareAttacked(square, color, occupied);
+    }
+
+    public boolean isSquareAttacked(int square, Color color, long occupancy) {
+        long[] pieces = bitboards[color.ordinal()];
+        if ((Attacks.pawn(enemy(color), square) & pieces[PieceType.PAWN.ordinal()]) != 0 ||
+                (Attacks.knight(square) & pieces[PieceType.KNIGHT.ordinal()]) != 0 ||
+                (Attacks.king(square) & pieces[PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+
+        long queens = pieces[PieceType.QUEEN.ordinal()];
+        long rooks = pieces[PieceType.ROOK.ordinal()] | queens;
+        if (rooks != 0 && (Attacks.rook(square, occupancy) & rooks) != 0) {
+            return true;
+        }
+        long bishops = pieces[PieceType.BISHOP.ordinal()] | queens;
+        return bishops != 0 && (Attacks.bishop(square, occupancy) & bishops) != 0;
+    }
+
+    // the board's own storage is the bitboards and the squares array; Board's matrix is never used
+    public void placePiece(ChessPiece piece, int square) {
+        long bit = Bitboard.bit(square);
+        if ((occupied & bit) != 0) {
+            throw new BoardException("There is already a piece on " + POSITIONS[square]);
+        }
+        Color color = piece.getColor();
+        PieceType type = piece.getType();
+        bitboards[color.ordinal()][type.ordinal()] |= bit;
+        occupancy[color.ordinal()] |= bit;
+        occupied |= bit;
+        squares[square] = piece;
+        setPosition(piece, POSITIONS[square]);
+        if (type == PieceType.KING) {
+            kingSquares[color.ordinal()] = square;
+        }
+        key ^= Zobrist.piece(color, type, square);
+        middlegame += Evaluation.middlegame(color, type, square);
+        endgame += Evaluation.endgame(color, type, square);
+        phase += Evaluation.phase(type);
+    }
+
+    public ChessPiece removePiece(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return null;
+        }
+
+        Color color = piece.getColor();
+        PieceType type = piece.getType();
+        long bit = ~Bitboard.bit(square);
+        bitboards[color.ordinal()][type.ordinal()] &= bit;
+        occupancy[color.ordinal()] &= bit;
+        occupied &= bit;
+        squares[square] = null;
+        setPosition(piece, null);
+        if (type == PieceType.KING) {
+            kingSquares[color.ordinal()] = -1;
+        }
+        key ^= Zobrist.piece(color, type, square);
+        middlegame -= Evaluation.middlegame(color, type, square);
+        endgame -= Evaluation.endgame(color, type, square);
+        phase -= Evaluation.phase(type);
+        return piece;
+    }
+
+    @Override
+    public ChessPiece piece(int row, int column) {
+        if (!positionExists(row, column)) {
+            throw new BoardException("This position is not accessible from the board.");
+        }
+        return squares[Bitboard.square(row, column)];
+    }
+
+    @Override
+    public ChessPiece piece(Position position) {
+        return piece(position.getRow(), position.getColumn());
+    }
+
+    @Override
+    public boolean thereIsAPiece(Position position) {
+        return piece(position) != null;
+    }
+
+    @Override
+    public void placePiece(Piece piece, Position position) {
+        if (!positionExists(position)) {
+            throw new BoardException("This position is not accessible from the board.");
+        }
+        placePiece((ChessPiece) piece, Bitboard.square(position));
+    }
+
+    @Override
+    public ChessPiece removePiece(Position position) {
+        if (!positionExists(position)) {
+            throw new BoardException("This position is not accessible from the board.");
+        }
+        return removePiece(Bitboard.square(position));
+    }
+
+    private static Color enemy(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
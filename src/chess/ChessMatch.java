@@ -1,102 +1,490 @@
 package chess;
 
-import boardgame.Board;
-import boardgame.Piece;
 import boardgame.Position;
+import chess.metrics.Metrics;
+import chess.metrics.Operation;
 import chess.pieces.*;
-import chess.util.Util;
+import chess.util.Attacks;
+import chess.util.Bitboard;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 public class ChessMatch {
 
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    private static final long CASTLING_SQUARES = 0x9100000000000091L;
+
     private int round;
+    private int halfmoveClock;
     private Color currentPlayer;
-    private final Board board;
+    private final ChessBoard board;
+    private final MoveGenerator moveGenerator;
     private boolean check;
     private boolean checkmate;
+    private boolean stalemate;
     private ChessPiece vulnerablePawn;
     private ChessPiece promotedPawn;
+    private int castlingRights;
+    private long stateKey;
+
+    private final PieceList piecesOnTheBoard = new PieceList();
+    private final PieceList capturedPieces = new PieceList();
+    private final int[] moveBuffer = new int[Move.MAX_MOVES];
+    // legal moves of the current position are cached in moveBuffer until the board changes
+    private int legalMoveCount = -1;
 
-    private final ChessPiece[] piecesOnTheBoard = new ChessPiece[32];
-    private final ChessPiece[] capturedPieces = new ChessPiece[32];
+    private final MoveHistory history = new MoveHistory();
+    // copied on change, so firing an event neither allocates nor sees a listener added meanwhile
+    private MatchListener[] listeners = new MatchListener[0];
 
 
     public ChessMatch() {
-        board = new Board(8, 8);
+        board = new ChessBoard();
+        moveGenerator = new MoveGenerator(board);
         round = 1;
         currentPlayer = Color.WHITE;
         initialSetup();
+        castlingRights = castlingRights();
+        stateKey = stateKey();
+    }
+
+    public ChessMatch(String fen) {
+        this(Fen.parse(fen));
+    }
+
+    // an independent copy of the match, e.g. for another search thread; pieces are rebuilt because
+    // Pawn holds a reference to its match, and the history is copied so earlier moves can be taken back
+    public ChessMatch(ChessMatch other) {
+        board = new ChessBoard();
+        moveGenerator = new MoveGenerator(board);
+        round = other.round;
+        halfmoveClock = other.halfmoveClock;
+        currentPlayer = other.currentPlayer;
+        check = other.check;
+        checkmate = other.checkmate;
+        stalemate = other.stalemate;
+        castlingRights = other.castlingRights;
+        stateKey = other.stateKey;
+
+        Map<ChessPiece, ChessPiece> copies = new IdentityHashMap<>();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = other.board.piece(square);
+            if (piece != null) {
+                ChessPiece copy = copyOf(piece, copies);
+                board.placePiece(copy, square);
+                piecesOnTheBoard.add(copy);
+            }
+        }
+        capturedPieces.addAll(other.capturedPieces, piece -> copyOf(piece, copies));
+        vulnerablePawn = copyOf(other.vulnerablePawn, copies);
+        promotedPawn = copyOf(other.promotedPawn, copies);
+
+        MoveHistory moves = other.history;
+        for (int i = 0; i < moves.size(); i++) {
+            history.push(moves.getMove(i), copyOf(moves.getMovedPiece(i), copies),
+                    copyOf(moves.getCapturedPiece(i), copies), copyOf(moves.getVulnerablePawn(i), copies),
+                    moves.isCheck(i), moves.getCastlingRights(i), moves.getStateKey(i), moves.getKey(i),
+                    moves.getHalfmoveClock(i));
+        }
+    }
+
+    public ChessMatch(ChessSnapshot snapshot) {
+        board = new ChessBoard();
+        moveGenerator = new MoveGenerator(board);
+        load(snapshot);
+    }
+
+
+    public static ChessMatch fromFen(CharSequence fen) {
+        return new ChessMatch(Fen.parse(fen));
+    }
+
+    // replaces the position and clears the history, so one match can be reused for many games
+    public void load(ChessSnapshot snapshot) {
+        long occupied = board.occupancy();
+        while (occupied != 0) {
+            board.removePiece(Bitboard.first(occupied));
+            occupied &= occupied - 1;
+        }
+        piecesOnTheBoard.clear();
+        capturedPieces.clear();
+        history.clear();
+        vulnerablePawn = null;
+        promotedPawn = null;
+        legalMoveCount = -1;
+
+        currentPlayer = snapshot.getSideToMove();
+        round = snapshot.getRound();
+        halfmoveClock = snapshot.getHalfmoveClock();
+
+        int rights = snapshot.getCastlingRights();
+        occupied = snapshot.occupancy();
+        while (occupied != 0) {
+            int square = Bitboard.first(occupied);
+            ChessPiece piece = newPiece(snapshot.pieceType(square), snapshot.color(square));
+            board.placePiece(piece, square);
+            if ((piece instanceof King || piece instanceof Rook) && !hasCastlingRight(rights, piece)) {
+                piece.increaseMoveCount();
+            }
+            piecesOnTheBoard.add(piece);
+            occupied &= occupied - 1;
+        }
+
+        int target = snapshot.getEnPassantSquare();
+        if (target >= 0) {
+            vulnerablePawn = board.piece(target + (currentPlayer == Color.WHITE ? 8 : -8));
+        }
+
+        castlingRights = castlingRights();
+        stateKey = stateKey();
+        check = testCheck(currentPlayer);
+        updateStatus();
     }
 
+    // recomputes checkmate and stalemate, which makeMove leaves alone; game-level callers that
+    // play a run of moves with makeMove call this once they are done
+    public void updateStatus() {
+        checkmate = testCheckmate(currentPlayer);
+        stalemate = !check && legalMoves() == 0;
+    }
 
     public int getRound() { return round; }
+    public int getHalfmoveClock() { return halfmoveClock; }
     public Color getCurrentPlayer() { return currentPlayer; }
     public boolean isCheck() { return check; }
     public boolean isCheckmate() { return checkmate; }
+    public boolean isStalemate() { return stalemate; }
     public ChessPiece getVulnerablePawn() { return vulnerablePawn; }
     public ChessPiece getPromotedPawn() { return promotedPawn; }
 
+    public int getCastlingRights() { return castlingRights; }
+    public MoveHistory getHistory() { return history; }
+    public PieceList getPiecesOnTheBoard() { return piecesOnTheBoard; }
+    public PieceList getCapturedPieces() { return capturedPieces; }
+
+    ChessBoard getBoard() { return board; }
+
+    // listeners are not carried over to copies of the match
+    public void addListener(MatchListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(MatchListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MatchListener[] remaining = new MatchListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    public ChessSnapshot snapshot() {
+        return new ChessSnapshot(this);
+    }
+
+    public String toFen() {
+        return Fen.toFen(snapshot());
+    }
+
+    public long positionKey() {
+        return board.getKey() ^ stateKey;
+    }
+
+    public Color getWinner() {
+        return checkmate ? enemy(currentPlayer) : null;
+    }
+
     public ChessPiece[][] getPieces() {
         ChessPiece[][] matrix = new ChessPiece[board.getRows()][board.getColumns()];
 
         for (int i = 0; i < board.getRows(); i++) {
             for (int j = 0; j < board.getColumns(); j++) {
-                matrix[i][j] = (ChessPiece) board.piece(i, j);
+                matrix[i][j] = board.piece(Bitboard.square(i, j));
             }
         }
 
         return matrix;
     }
 
+    public ChessPiece piece(int square) {
+        return board.piece(square);
+    }
+
+    public long pieces(Color color, PieceType type) {
+        return board.pieces(color, type);
+    }
+
+    public long occupancy() {
+        return board.occupancy();
+    }
+
+    // the square the vulnerable pawn passed over, or -1
+    public int getEnPassantSquare() {
+        if (vulnerablePawn == null) {
+            return -1;
+        }
+        return vulnerablePawn.getSquare() + (vulnerablePawn.getColor() == Color.WHITE ? 8 : -8);
+    }
+
+    // incremental evaluation from the side to move's point of view
+    public int evaluate() {
+        return Evaluation.evaluate(board, currentPlayer);
+    }
+
+    // the timed operations wrap their implementation; with metrics disabled that costs one branch
     public boolean[][] possibleMoves(ChessPosition sourcePos) {
+        if (!Metrics.isEnabled()) {
+            return findPossibleMoves(sourcePos);
+        }
+        long start = System.nanoTime();
+        try {
+            return findPossibleMoves(sourcePos);
+        }
+        finally {
+            Metrics.record(Operation.POSSIBLE_MOVES, start);
+        }
+    }
+
+    private boolean[][] findPossibleMoves(ChessPosition sourcePos) {
         Position position = sourcePos.toPosition();
         validateSourcePosition(position);
-        return board.piece(position).possibleMoves();
+
+        boolean[][] matrix = new boolean[board.getRows()][board.getColumns()];
+        int source = Bitboard.square(position);
+        int count = legalMoves();
+        for (int i = 0; i < count; i++) {
+            if (Move.from(moveBuffer[i]) == source) {
+                int target = Move.to(moveBuffer[i]);
+                matrix[Bitboard.row(target)][Bitboard.column(target)] = true;
+            }
+        }
+        return matrix;
+    }
+
+    public int generateMoves(int[] moves) {
+        int count = legalMoves();
+        System.arraycopy(moveBuffer, 0, moves, 0, count);
+        return count;
     }
 
     public ChessPiece performChessMove(ChessPosition sourcePos, ChessPosition targetPos) {
+        if (!Metrics.isEnabled()) {
+            return performMove(sourcePos, targetPos);
+        }
+        long start = System.nanoTime();
+        try {
+            return performMove(sourcePos, targetPos);
+        }
+        finally {
+            Metrics.record(Operation.PERFORM_CHESS_MOVE, start);
+        }
+    }
+
+    private ChessPiece performMove(ChessPosition sourcePos, ChessPosition targetPos) {
         Position source = sourcePos.toPosition();
         Position target = targetPos.toPosition();
         validateSourcePosition(source);
-        validateTargetPosition(source, target);
-        Piece capturedPiece = makeMove(source, target);
+        int move = validateTargetPosition(source, target);
+        ChessPiece capturedPiece = makeMove(move);
 
-        if (testCheck(currentPlayer)) {
-            undoMove(source, target, capturedPiece);
-            throw new ChessException("Illegal move: One does not simply self-check.");
+        // promotion
+        promotedPawn = null;
+        if (Move.isPromotion(move)) {
+            promotedPawn = board.piece(Move.to(move));
+        }
+
+        if (testCheckmate(currentPlayer)) {
+            checkmate = true;
+        }
+        else {
+            stalemate = !check && legalMoves() == 0;
+        }
+
+        if (listeners.length != 0) {
+            fireMove(move, history.getMovedPiece(history.size() - 1), capturedPiece);
+        }
+        return capturedPiece;
+    }
+
+    // plays a legal move for search and replay: keeps check, the keys and the history up to date but
+    // not checkmate, stalemate or a pending promotion, see updateStatus
+    public ChessPiece makeMove(int move) {
+        if (!Metrics.isEnabled()) {
+            return playMove(move);
+        }
+        long start = System.nanoTime();
+        try {
+            return playMove(move);
+        }
+        finally {
+            Metrics.record(Operation.MAKE_MOVE, start);
+        }
+    }
+
+    private ChessPiece playMove(int move) {
+        int source = Move.from(move);
+        int target = Move.to(move);
+        int previousCastlingRights = castlingRights;
+        long previousStateKey = stateKey;
+        long previousKey = positionKey();
+        legalMoveCount = -1;
+        stateKey ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+
+        ChessPiece p = board.removePiece(source);
+        p.increaseMoveCount();
+        ChessPiece capturedPiece = board.removePiece(target);
+
+        // en passant
+        if (Move.isEnPassant(move)) {
+            capturedPiece = board.removePiece(target + (p.getColor() == Color.WHITE ? 8 : -8));
         }
 
-        ChessPiece movedPiece = (ChessPiece) board.piece(target);
+        if (capturedPiece != null) {
+            piecesOnTheBoard.remove(capturedPiece);
+            capturedPieces.add(capturedPiece);
+        }
 
         // promotion
-        promotedPawn = null;
-        if (movedPiece instanceof Pawn && (target.getRow() == 0 || target.getRow() == 7)) {
-            promotedPawn = (ChessPiece) board.piece(target);
-            promotedPawn = replacePromotedPawn("Q");
+        ChessPiece movedPiece = p;
+        if (Move.isPromotion(move)) {
+            movedPiece = newPiece(Move.promotion(move), p.getColor());
+            piecesOnTheBoard.remove(p);
+            piecesOnTheBoard.add(movedPiece);
         }
+        board.placePiece(movedPiece, target);
 
-        check = testCheck(enemy(currentPlayer));
+        // castling
+        if (Move.isCastling(move)) {
+            boolean kingSide = target > source;
+            ChessPiece rook = board.removePiece(kingSide ? source + 3 : source - 4);
+            board.placePiece(rook, kingSide ? source + 1 : source - 1);
+            rook.increaseMoveCount();
+        }
 
-        if (testCheckmate(enemy(currentPlayer))) {
-            checkmate = true;
+        history.push(move, p, capturedPiece, vulnerablePawn, check, previousCastlingRights, previousStateKey,
+                previousKey, halfmoveClock);
+        halfmoveClock = (p instanceof Pawn || capturedPiece != null) ? 0 : halfmoveClock + 1;
+        vulnerablePawn = ((Move.flags(move) & Move.DOUBLE_PUSH) != 0) ? movedPiece : null;
+        nextRound();
+        check = testCheck(currentPlayer);
+
+        // castling rights only shrink, and only when a king or rook square is touched
+        if (castlingRights != 0 && ((Bitboard.bit(source) | Bitboard.bit(target)) & CASTLING_SQUARES) != 0) {
+            castlingRights = castlingRights();
         }
-        else {
-            nextRound();
+        stateKey ^= Zobrist.side() ^ Zobrist.castling(castlingRights) ^ enPassantKey();
+
+        return capturedPiece;
+    }
+
+    // takes back the last move made with makeMove or performChessMove
+    public void undoMove() {
+        if (!Metrics.isEnabled()) {
+            retractMove();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            retractMove();
         }
+        finally {
+            Metrics.record(Operation.UNDO_MOVE, start);
+        }
+    }
 
-        // test for en passant
-        if (movedPiece instanceof Pawn && (
-                (target.getRow() == source.getRow() - 2) ||
-                (target.getRow() == source.getRow() + 2))) {
-            vulnerablePawn = movedPiece;
+    private void retractMove() {
+        if (history.isEmpty()) {
+            throw new IllegalStateException("There is no move to undo.");
         }
-        else {
-            vulnerablePawn = null;
+
+        legalMoveCount = -1;
+        int i = history.size() - 1;
+        int move = history.getMove(i);
+        ChessPiece p = history.getMovedPiece(i);
+        ChessPiece capturedPiece = history.getCapturedPiece(i);
+        vulnerablePawn = history.getVulnerablePawn(i);
+        check = history.isCheck(i);
+        castlingRights = history.getCastlingRights(i);
+        stateKey = history.getStateKey(i);
+        halfmoveClock = history.getHalfmoveClock(i);
+        history.pop();
+
+        round--;
+        currentPlayer = enemy(currentPlayer);
+        checkmate = false;
+        stalemate = false;
+
+        int source = Move.from(move);
+        int target = Move.to(move);
+
+        ChessPiece movedPiece = board.removePiece(target);
+        if (movedPiece != p) {
+            piecesOnTheBoard.remove(movedPiece);
+            piecesOnTheBoard.add(p);
+        }
+        p.decreaseMoveCount();
+        board.placePiece(p, source);
+
+        if (capturedPiece != null) {
+            int capturedSquare = target;
+            // en passant
+            if (Move.isEnPassant(move)) {
+                capturedSquare = target + (p.getColor() == Color.WHITE ? 8 : -8);
+            }
+            board.placePiece(capturedPiece, capturedSquare);
+            capturedPieces.remove(capturedPiece);
+            piecesOnTheBoard.add(capturedPiece);
         }
 
-        return (ChessPiece) capturedPiece;
+        // castling
+        if (Move.isCastling(move)) {
+            boolean kingSide = target > source;
+            ChessPiece rook = board.removePiece(kingSide ? source + 1 : source - 1);
+            board.placePiece(rook, kingSide ? source + 3 : source - 4);
+            rook.decreaseMoveCount();
+        }
+    }
+
+    // a player's takeback: also drops a pending promotion; returns the piece the move had captured,
+    // which is back on the board
+    public ChessPiece takeBack() {
+        if (history.isEmpty()) {
+            throw new ChessException("There is no move to take back.");
+        }
+        int move = history.getLastMove();
+        ChessPiece capturedPiece = history.getCapturedPiece(history.size() - 1);
+        undoMove();
+        promotedPawn = null;
+        for (MatchListener listener : listeners) {
+            listener.moveTakenBack(move);
+        }
+        return capturedPiece;
     }
 
     public ChessPiece replacePromotedPawn(String piece) {
+        if (!Metrics.isEnabled()) {
+            return replacePromoted(piece);
+        }
+        long start = System.nanoTime();
+        try {
+            return replacePromoted(piece);
+        }
+        finally {
+            Metrics.record(Operation.REPLACE_PROMOTED_PAWN, start);
+        }
+    }
+
+    private ChessPiece replacePromoted(String piece) {
         if (promotedPawn == null) {
             throw new IllegalStateException("There is no piece to be promoted.");
         }
@@ -104,17 +492,71 @@ public class ChessMatch {
             return promotedPawn;
         }
 
-        Position pos = promotedPawn.getChessPosition().toPosition();
-        ChessPiece p = (ChessPiece) board.removePiece(pos);
-        Util.arrRemove(p, piecesOnTheBoard);
-
+        // the move was played with the chosen piece already, so there is nothing to change or report
         ChessPiece newPiece = newPiece(piece, promotedPawn.getColor());
+        PieceType oldType = promotedPawn.getType();
+        if (newPiece.getType() == oldType) {
+            return promotedPawn;
+        }
+
+        Position pos = promotedPawn.getChessPosition().toPosition();
+        ChessPiece p = board.removePiece(pos);
+        piecesOnTheBoard.remove(p);
         board.placePiece(newPiece, pos);
-        Util.arrAdd(newPiece, piecesOnTheBoard);
+        legalMoveCount = -1;
+        piecesOnTheBoard.add(newPiece);
+
+        int move = history.getLastMove();
+        history.replaceLastMove(Move.of(Move.from(move), Move.to(move), Move.flags(move), newPiece.getType()));
 
+        // an underpromotion can change whether the opponent is in check or mated
+        check = testCheck(currentPlayer);
+        updateStatus();
+
+        for (MatchListener listener : listeners) {
+            listener.promotionChanged(newPiece.getColor(), oldType, newPiece.getType(), newPiece.getSquare());
+            fireStatus(listener);
+        }
         return newPiece;
     }
 
+    private void fireMove(int move, ChessPiece movedPiece, ChessPiece capturedPiece) {
+        int source = Move.from(move);
+        int target = Move.to(move);
+        Color color = movedPiece.getColor();
+        int capturedSquare = Move.isEnPassant(move) ? target + (color == Color.WHITE ? 8 : -8) : target;
+        boolean kingSide = target > source;
+
+        for (MatchListener listener : listeners) {
+            if (capturedPiece != null) {
+                listener.pieceCaptured(capturedPiece.getColor(), capturedPiece.getType(), capturedSquare);
+            }
+            listener.pieceMoved(color, movedPiece.getType(), source, target);
+            if (Move.isCastling(move)) {
+                listener.castled(color, kingSide ? source + 3 : source - 4, kingSide ? source + 1 : source - 1);
+            }
+            if (Move.isEnPassant(move)) {
+                listener.enPassant(color, source, target, capturedSquare);
+            }
+            if (Move.isPromotion(move)) {
+                listener.promoted(color, Move.promotion(move), target);
+            }
+            fireStatus(listener);
+        }
+    }
+
+    private void fireStatus(MatchListener listener) {
+        if (checkmate) {
+            listener.checkmate(getWinner());
+        }
+        else if (stalemate) {
+            listener.stalemate();
+        }
+        else if (check) {
+            listener.check(currentPlayer);
+        }
+    }
+
     private ChessPiece newPiece(String piece, Color color) {
         switch (piece) {
             case "B":
@@ -131,126 +573,145 @@ public class ChessMatch {
         }
     }
 
-    private Piece makeMove(Position source, Position target) {
-        ChessPiece p = (ChessPiece) board.removePiece(source);
-        p.increaseMoveCount();
-        Piece capturedPiece = board.removePiece(target);
+    private ChessPiece newPiece(PieceType type, Color color) {
+        switch (type) {
+            case PAWN:
+                return new Pawn(board, color, this);
 
-        Util.arrRemove((ChessPiece) capturedPiece, piecesOnTheBoard);
-        Util.arrAdd(capturedPiece, capturedPieces);
-        board.placePiece(p, target);
+            case KING:
+                return new King(board, color);
 
-        // castling short
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position rookSource = new Position(source.getRow(), source.getColumn() + 3);
-            Position rookTarget = new Position(source.getRow(), source.getColumn() + 1);
-
-            ChessPiece rook = (ChessPiece) board.removePiece(rookSource);
-            board.placePiece(rook, rookTarget);
-            rook.increaseMoveCount();
-        }
+            case BISHOP:
+                return new Bishop(board, color);
 
-        // castling long
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position rookSource = new Position(source.getRow(), source.getColumn() - 4);
-            Position rookTarget = new Position(source.getRow(), source.getColumn() - 1);
+            case KNIGHT:
+                return new Knight(board, color);
 
-            ChessPiece rook = (ChessPiece) board.removePiece(rookSource);
-            board.placePiece(rook, rookTarget);
-            rook.increaseMoveCount();
-        }
+            case ROOK:
+                return new Rook(board, color);
 
-        // en passant
-        if (p instanceof Pawn) {
-            if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-                Position capturedPawnPos;
-                switch (p.getColor()) {
-                    case WHITE:
-                        capturedPawnPos = new Position(target.getRow() + 1, target.getColumn());
-                        break;
-                    case BLACK:
-                        capturedPawnPos = new Position(target.getRow() - 1, target.getColumn());
-                        break;
-                    default:
-                        throw new ChessException("No idea what happened.");
-                }
-                capturedPiece = board.removePiece(capturedPawnPos);
-                Util.arrRemove(vulnerablePawn, piecesOnTheBoard);
-                Util.arrAdd(vulnerablePawn, capturedPieces);
-            }
+            default:
+                return new Queen(board, color);
         }
-
-        return capturedPiece;
     }
 
-    private void undoMove(Position source, Position target, Piece capturedPiece) {
-        ChessPiece p = (ChessPiece) board.removePiece(target);
-        p.decreaseMoveCount();
-        board.placePiece(p, source);
-
-        if (capturedPiece != null) {
-            board.placePiece(capturedPiece, target);
-            Util.arrRemove((ChessPiece) capturedPiece, capturedPieces);
-            Util.arrAdd(capturedPiece, piecesOnTheBoard);
-        }
-
-        // castling short
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position rookSource = new Position(source.getRow(), source.getColumn() + 3);
-            Position rookTarget = new Position(source.getRow(), source.getColumn() + 1);
+    private ChessPiece copyOf(ChessPiece piece, Map<ChessPiece, ChessPiece> copies) {
+        return (piece == null) ? null : copies.computeIfAbsent(piece, this::copyPiece);
+    }
 
-            ChessPiece rook = (ChessPiece) board.removePiece(rookTarget);
-            board.placePiece(rook, rookSource);
-            rook.decreaseMoveCount();
+    private ChessPiece copyPiece(ChessPiece piece) {
+        ChessPiece copy = newPiece(piece.getType(), piece.getColor());
+        for (int i = 0; i < piece.getMoveCount(); i++) {
+            copy.increaseMoveCount();
         }
+        return copy;
+    }
 
-        // castling long
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position rookSource = new Position(source.getRow(), source.getColumn() - 4);
-            Position rookTarget = new Position(source.getRow(), source.getColumn() - 1);
-
-            ChessPiece rook = (ChessPiece) board.removePiece(rookTarget);
-            board.placePiece(rook, rookSource);
-            rook.decreaseMoveCount();
-        }
+    private boolean hasCastlingRight(int rights, ChessPiece piece) {
+        boolean white = piece.getColor() == Color.WHITE;
+        int kingSide = white ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        int queenSide = white ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        int homeRow = white ? 56 : 0;
 
-        // en passant
-        if (p instanceof Pawn) {
-            if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-                ChessPiece pawn = (ChessPiece) board.removePiece(target);
-                Position capturedPawnPos;
-                switch (p.getColor()) {
-                    case WHITE:
-                        capturedPawnPos = new Position(3, target.getColumn());
-                        break;
-                    case BLACK:
-                        capturedPawnPos = new Position(4, target.getColumn());
-                        break;
-                    default:
-                        throw new ChessException("No idea what happened.");
-                }
-                board.placePiece(pawn, capturedPawnPos);
-            }
+        if (piece instanceof King) {
+            return piece.getSquare() == homeRow + 4 && (rights & (kingSide | queenSide)) != 0;
         }
+        return (piece.getSquare() == homeRow + 7 && (rights & kingSide) != 0) ||
+                (piece.getSquare() == homeRow && (rights & queenSide) != 0);
     }
 
     private void validateSourcePosition(Position position) {
         if (!board.thereIsAPiece(position)) {
             throw new ChessException("Source position is empty.");
         }
-        if (currentPlayer != ((ChessPiece) board.piece(position)).getColor()) {
+        if (currentPlayer != board.piece(position).getColor()) {
             throw new ChessException(String.format("Current turn is %ss'",
                     currentPlayer.toString()));
         }
-        if (!board.piece(position).canMove()) {
+        if (!hasLegalMoves(Bitboard.square(position))) {
             throw new ChessException("This piece is stuck.");
         }
     }
 
-    private void validateTargetPosition(Position source, Position target) {
+    private int validateTargetPosition(Position source, Position target) {
         if (!board.piece(source).isMovePossible(target)) {
             throw new ChessException("Invalid movement for chosen piece.");
         }
+        int move = legalMove(Bitboard.square(source), Bitboard.square(target));
+        if (move == Move.NONE) {
+            throw new ChessException("Illegal move: One does not simply self-check.");
+        }
+        return move;
+    }
+
+    private boolean hasLegalMoves(int source) {
+        int count = legalMoves();
+        for (int i = 0; i < count; i++) {
+            if (Move.from(moveBuffer[i]) == source) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int legalMove(int source, int target) {
+        int count = legalMoves();
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.from(move) == source && Move.to(move) == target &&
+                    (!Move.isPromotion(move) || Move.promotion(move) == PieceType.QUEEN)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private int legalMoves() {
+        if (legalMoveCount < 0) {
+            legalMoveCount = moveGenerator.generateLegalMoves(currentPlayer, moveBuffer);
+        }
+        return legalMoveCount;
+    }
+
+    private int castlingRights() {
+        int rights = 0;
+        if (canCastle(Color.WHITE, 60, 63)) {
+            rights |= WHITE_KING_SIDE;
+        }
+        if (canCastle(Color.WHITE, 60, 56)) {
+            rights |= WHITE_QUEEN_SIDE;
+        }
+        if (canCastle(Color.BLACK, 4, 7)) {
+            rights |= BLACK_KING_SIDE;
+        }
+        if (canCastle(Color.BLACK, 4, 0)) {
+            rights |= BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private boolean canCastle(Color color, int kingSquare, int rookSquare) {
+        ChessPiece king = board.piece(kingSquare);
+        ChessPiece rook = board.piece(rookSquare);
+        return king instanceof King && king.getColor() == color && king.getMoveCount() == 0 &&
+                rook instanceof Rook && rook.getColor() == color && rook.getMoveCount() == 0;
+    }
+
+    private long stateKey() {
+        long key = Zobrist.castling(castlingRights) ^ enPassantKey();
+        return (currentPlayer == Color.BLACK) ? key ^ Zobrist.side() : key;
+    }
+
+    // only hash the en passant file when the side to move can actually capture
+    private long enPassantKey() {
+        if (vulnerablePawn == null) {
+            return 0;
+        }
+        int target = vulnerablePawn.getSquare() + (vulnerablePawn.getColor() == Color.WHITE ? 8 : -8);
+        if ((Attacks.pawn(vulnerablePawn.getColor(), target) & board.pieces(currentPlayer, PieceType.PAWN)) == 0) {
+            return 0;
+        }
+        return Zobrist.enPassant(Bitboard.column(target));
     }
 
     private void nextRound() {
@@ -262,91 +723,59 @@ public class ChessMatch {
         return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
     }
 
-    private ChessPiece king(Color color) {
-        for (ChessPiece c : piecesOnTheBoard) {
-            if (c != null && c.getColor() == color && c instanceof King) {
-                return c;
-            }
+    private int kingSquare(Color color) {
+        int square = board.getKingSquare(color);
+        if (square < 0) {
+            throw new IllegalStateException(String.format(
+                    "%s king not found on board.", color));
         }
-        throw new IllegalStateException(String.format(
-                "%s king not found on board.", color));
+        return square;
     }
 
-    public boolean willCastleCheck(Color color, Position source, Position target) {
-        ChessPiece king = (ChessPiece) makeMove(source, target);
-
-        if (!testCheck(color)) {
-            undoMove(source, target, king);
-            return false;
+    boolean testCheck(Color color) {
+        if (!Metrics.isEnabled()) {
+            return isInCheck(color);
+        }
+        long start = System.nanoTime();
+        try {
+            return isInCheck(color);
+        }
+        finally {
+            Metrics.record(Operation.TEST_CHECK, start);
         }
-        undoMove(source, target, king);
-        return true;
     }
 
-    private boolean testCheck(Color color) {
-        Position kingPosition = king(color).getChessPosition().toPosition();
+    private boolean isInCheck(Color color) {
+        return board.isSquareAttacked(kingSquare(color), enemy(color));
+    }
 
-        ChessPiece[] enemies = new ChessPiece[16];
-        for (ChessPiece c : piecesOnTheBoard) {
-            if (c != null) {
-                if (c.getColor() == enemy(color)) {
-                    Util.arrAdd(c, enemies);
-                }
-            }
+    boolean testCheckmate(Color color) {
+        if (!Metrics.isEnabled()) {
+            return isCheckmated(color);
         }
-
-        for (ChessPiece c : enemies) {
-            if (c != null) {
-                boolean[][] matrix = c.possibleMoves();
-                if (matrix[kingPosition.getRow()][kingPosition.getColumn()]) {
-                    return true;
-                }
-            }
+        long start = System.nanoTime();
+        try {
+            return isCheckmated(color);
+        }
+        finally {
+            Metrics.record(Operation.TEST_CHECKMATE, start);
         }
-        return false;
     }
 
-    private boolean testCheckmate(Color color) {
+    private boolean isCheckmated(Color color) {
         if (!testCheck(color)) {
             return false;
         }
-
-        ChessPiece[] allies = new ChessPiece[16];
-        for (ChessPiece c : piecesOnTheBoard) {
-            if (c != null) {
-                if (c.getColor() == color) {
-                    Util.arrAdd(c, allies);
-                }
-            }
-        }
-
-        for (ChessPiece c : allies) {
-            if (c != null) {
-                boolean[][] matrix = c.possibleMoves();
-                for (int i = 0; i < board.getRows(); i++) {
-                    for (int j = 0; j < board.getColumns(); j++) {
-                        if (matrix[i][j]) {
-                            Position source = c.getChessPosition().toPosition();
-                            Position target = new Position(i, j);
-
-                            ChessPiece capturedPiece = (ChessPiece) makeMove(source, target);
-
-                            if (!testCheck(color)) {
-                                undoMove(source, target, capturedPiece);
-                                return false;
-                            }
-                            undoMove(source, target, capturedPiece);
-                        }
-                    }
-                }
-            }
+        if (color == currentPlayer) {
+            return legalMoves() == 0;
         }
-        return true;
+        legalMoveCount = -1;
+        return moveGenerator.generateLegalMoves(color, moveBuffer) == 0;
     }
 
     private void placeNewPiece(char column, int row, ChessPiece piece) {
         board.placePiece(piece, new ChessPosition(column, row).toPosition());
-        Util.arrAdd(piece, piecesOnTheBoard);
+        piecesOnTheBoard.add(piece);
     }
 
     private void initialSetup() {
@@ -365,7 +794,7 @@ public class ChessMatch {
         placeNewPiece('C', 1, new Bishop(board, Color.BLACK));
         placeNewPiece('F', 1, new Bishop(board, Color.BLACK));
         placeNewPiece('D', 1, new Queen(board, Color.BLACK));
-        placeNewPiece('E', 1, new King(board, Color.BLACK, this));
+        placeNewPiece('E', 1, new King(board, Color.BLACK));
 
         placeNewPiece('A', 7, new Pawn(board, Color.WHITE, this));
         placeNewPiece('B', 7, new Pawn(board, Color.WHITE, this));
@@ -382,6 +811,6 @@ public class ChessMatch {
         placeNewPiece('C', 8, new Bishop(board, Color.WHITE));
         placeNewPiece('F', 8, new Bishop(board, Color.WHITE));
         placeNewPiece('D', 8, new Queen(board, Color.WHITE));
-        placeNewPiece('E', 8, new King(board, Color.WHITE, this));
+        placeNewPiece('E', 8, new King(board, Color.WHITE));
     }
 }
@@ -1,33 +1,79 @@
 package chess;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.util.Bitboard;
 
 public abstract class ChessPiece extends Piece {
 
     private Color color;
     private int moveCount;
+    // index in the match's PieceList, -1 when in none
+    private int listIndex = -1;
 
 
-    public ChessPiece(Board board, Color color) {
+    public ChessPiece(ChessBoard board, Color color) {
         super(board);
         this.color = color;
     }
 
 
+    @Override
+    protected ChessBoard getBoard() { return (ChessBoard) super.getBoard(); }
+
     public Color getColor() { return color; }
     public int getMoveCount() { return moveCount; }
 
+    public abstract PieceType getType();
+
+    public abstract long moves();
+
     public ChessPosition getChessPosition() {
         return ChessPosition.fromPosition(position);
     }
 
+    public int getSquare() {
+        return Bitboard.square(position);
+    }
+
     public void increaseMoveCount() { moveCount++; }
     public void decreaseMoveCount() { moveCount--; }
 
-    protected boolean isThereAnEnemy(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p != null && p.getColor() != color;
+    int getListIndex() { return listIndex; }
+    void setListIndex(int listIndex) { this.listIndex = listIndex; }
+
+    @Override
+    public boolean[][] possibleMoves() {
+        return Bitboard.toMatrix(moves());
+    }
+
+    @Override
+    public boolean isMovePossible(Position position) {
+        return Bitboard.contains(moves(), Bitboard.square(position));
+    }
+
+    @Override
+    public boolean canMove() {
+        return moves() != 0;
+    }
+
+    public int generateMoves(int[] moves, int count) {
+        int from = getSquare();
+        long enemies = getBoard().occupancy(opponent());
+        long targets = moves();
+        while (targets != 0) {
+            int to = Bitboard.first(targets);
+            moves[count++] = Move.of(from, to, Bitboard.contains(enemies, to) ? Move.CAPTURE : 0);
+            targets &= targets - 1;
+        }
+        return count;
+    }
+
+    protected long emptyOrEnemy() {
+        return ~getBoard().occupancy(color);
+    }
+
+    protected Color opponent() {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
     }
 }
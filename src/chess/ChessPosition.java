@@ -1,6 +1,7 @@
 package chess;
 
 import boardgame.Position;
+import chess.util.Bitboard;
 
 public class ChessPosition {
 
@@ -29,6 +30,14 @@ public class ChessPosition {
         return new ChessPosition((char)('A' + position.getColumn()), position.getRow() + 1);
     }
 
+    public static ChessPosition fromSquare(int square) {
+        return new ChessPosition((char) ('A' + Bitboard.column(square)), Bitboard.row(square) + 1);
+    }
+
+    public int toSquare() {
+        return Bitboard.square(row - 1, column - 'A');
+    }
+
     @Override
     public String toString() {
         return "" + column + row;
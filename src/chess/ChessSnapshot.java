@@ -0,0 +1,218 @@
+package chess;
+
+import chess.util.Attacks;
+import chess.util.Bitboard;
+
+// Immutable copy of a position that can be handed to other threads while the match goes on.
+// Pieces are stored as quad bitboards: three planes hold the piece type (ordinal + 1) of every
+// square and the fourth marks Black's pieces, so a snapshot is 4 longs, the key and two ints.
+// toString() gives the FEN of the position.
+// play() is copy-make; new ChessMatch(snapshot) rebuilds a private, mutable match from it.
+public final class ChessSnapshot {
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // state layout: side to move (1 bit, set for Black) | castling rights (4) | en passant square + 1 (7)
+    //               | halfmove clock (16)
+    private static final int CASTLING_SHIFT = 1;
+    private static final int EN_PASSANT_SHIFT = 5;
+    private static final int HALFMOVE_SHIFT = 12;
+    static final int MAX_HALFMOVE_CLOCK = 0xFFFF;
+
+    // castling rights kept when a move touches a square
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            CASTLING_MASKS[square] = 15;
+        }
+        CASTLING_MASKS[60] &= ~(ChessMatch.WHITE_KING_SIDE | ChessMatch.WHITE_QUEEN_SIDE);
+        CASTLING_MASKS[63] &= ~ChessMatch.WHITE_KING_SIDE;
+        CASTLING_MASKS[56] &= ~ChessMatch.WHITE_QUEEN_SIDE;
+        CASTLING_MASKS[4] &= ~(ChessMatch.BLACK_KING_SIDE | ChessMatch.BLACK_QUEEN_SIDE);
+        CASTLING_MASKS[7] &= ~ChessMatch.BLACK_KING_SIDE;
+        CASTLING_MASKS[0] &= ~ChessMatch.BLACK_QUEEN_SIDE;
+    }
+
+    private final long type0;
+    private final long type1;
+    private final long type2;
+    private final long black;
+    private final long key;
+    private final int state;
+    private final int round;
+
+
+    public ChessSnapshot(ChessMatch match) {
+        ChessBoard board = match.getBoard();
+        long[] planes = new long[4];
+        for (Color color : Color.values()) {
+            for (PieceType type : TYPES) {
+                toggle(planes, code(color, type), board.pieces(color, type));
+            }
+        }
+        type0 = planes[0];
+        type1 = planes[1];
+        type2 = planes[2];
+        black = planes[3];
+        key = match.positionKey();
+        round = match.getRound();
+
+        state = state(match.getCurrentPlayer(), match.getCastlingRights(), match.getEnPassantSquare(),
+                match.getHalfmoveClock());
+    }
+
+    ChessSnapshot(long type0, long type1, long type2, long black, long key, int state, int round) {
+        this.type0 = type0;
+        this.type1 = type1;
+        this.type2 = type2;
+        this.black = black;
+        this.key = key;
+        this.state = state;
+        this.round = round;
+    }
+
+
+    public long getKey() { return key; }
+    public int getRound() { return round; }
+    public Color getSideToMove() { return ((state & 1) != 0) ? Color.BLACK : Color.WHITE; }
+    public int getCastlingRights() { return (state >>> CASTLING_SHIFT) & 15; }
+    public int getHalfmoveClock() { return state >>> HALFMOVE_SHIFT; }
+    public int getFullmoveNumber() { return (round + 1) / 2; }
+
+    // the square a pawn passed over on the last move, or -1
+    public int getEnPassantSquare() {
+        return ((state >>> EN_PASSANT_SHIFT) & 127) - 1;
+    }
+
+    public long occupancy() {
+        return type0 | type1 | type2;
+    }
+
+    public long occupancy(Color color) {
+        return occupancy() & ((color == Color.BLACK) ? black : ~black);
+    }
+
+    public long pieces(Color color, PieceType type) {
+        int code = code(color, type);
+        return (((code & 1) != 0) ? type0 : ~type0) &
+                (((code & 2) != 0) ? type1 : ~type1) &
+                (((code & 4) != 0) ? type2 : ~type2) &
+                (((code & 8) != 0) ? black : ~black);
+    }
+
+    public PieceType pieceType(int square) {
+        int code = code(square) & 7;
+        return (code == 0) ? null : TYPES[code - 1];
+    }
+
+    public Color color(int square) {
+        if (!Bitboard.contains(occupancy(), square)) {
+            return null;
+        }
+        return Bitboard.contains(black, square) ? Color.BLACK : Color.WHITE;
+    }
+
+    // the snapshot after a legal move, e.g. one generated by a match built from this snapshot
+    public ChessSnapshot play(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Color side = getSideToMove();
+        Color enemy = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        PieceType type = pieceType(from);
+        long[] planes = {type0, type1, type2, black};
+        long newKey = key ^ enPassantKey(getEnPassantSquare(), side, pieces(side, PieceType.PAWN));
+
+        if (Move.isEnPassant(move)) {
+            int captured = to + ((side == Color.WHITE) ? 8 : -8);
+            toggle(planes, code(enemy, PieceType.PAWN), Bitboard.bit(captured));
+            newKey ^= Zobrist.piece(enemy, PieceType.PAWN, captured);
+        }
+        else if (Move.isCapture(move)) {
+            PieceType captured = pieceType(to);
+            toggle(planes, code(enemy, captured), Bitboard.bit(to));
+            newKey ^= Zobrist.piece(enemy, captured, to);
+        }
+
+        PieceType placed = Move.isPromotion(move) ? Move.promotion(move) : type;
+        toggle(planes, code(side, type), Bitboard.bit(from));
+        toggle(planes, code(side, placed), Bitboard.bit(to));
+        newKey ^= Zobrist.piece(side, type, from) ^ Zobrist.piece(side, placed, to);
+
+        if (Move.isCastling(move)) {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (to > from) ? from + 1 : from - 1;
+            toggle(planes, code(side, PieceType.ROOK), Bitboard.bit(rookFrom) | Bitboard.bit(rookTo));
+            newKey ^= Zobrist.piece(side, PieceType.ROOK, rookFrom) ^ Zobrist.piece(side, PieceType.ROOK, rookTo);
+        }
+
+        int rights = getCastlingRights();
+        int newRights = rights & CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        int enPassant = ((Move.flags(move) & Move.DOUBLE_PUSH) != 0) ? (from + to) / 2 : -1;
+        long enemyPawns = pieces(enemy, PieceType.PAWN);
+        if (Move.isCapture(move) && !Move.isEnPassant(move)) {
+            enemyPawns &= ~Bitboard.bit(to);
+        }
+        newKey ^= Zobrist.castling(rights) ^ Zobrist.castling(newRights) ^
+                enPassantKey(enPassant, enemy, enemyPawns) ^ Zobrist.side();
+
+        int halfmoveClock = (type == PieceType.PAWN || Move.isCapture(move)) ? 0 : getHalfmoveClock() + 1;
+        return new ChessSnapshot(planes[0], planes[1], planes[2], planes[3], newKey,
+                state(enemy, newRights, enPassant, halfmoveClock), round + 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ChessSnapshot)) {
+            return false;
+        }
+        ChessSnapshot other = (ChessSnapshot) o;
+        return type0 == other.type0 && type1 == other.type1 && type2 == other.type2 &&
+                black == other.black && key == other.key && state == other.state && round == other.round;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key) * 31 + state;
+    }
+
+    @Override
+    public String toString() {
+        return Fen.toFen(this);
+    }
+
+    int code(int square) {
+        return (int) ((type0 >>> square) & 1 | ((type1 >>> square) & 1) << 1 |
+                ((type2 >>> square) & 1) << 2 | ((black >>> square) & 1) << 3);
+    }
+
+    static int code(Color color, PieceType type) {
+        return (type.ordinal() + 1) | ((color == Color.BLACK) ? 8 : 0);
+    }
+
+    // flips the squares in every plane the code has a bit in
+    private static void toggle(long[] planes, int code, long squares) {
+        for (int i = 0; i < planes.length; i++) {
+            if (((code >>> i) & 1) != 0) {
+                planes[i] ^= squares;
+            }
+        }
+    }
+
+    static int state(Color side, int castlingRights, int enPassant, int halfmoveClock) {
+        return ((side == Color.BLACK) ? 1 : 0) | castlingRights << CASTLING_SHIFT |
+                (enPassant + 1) << EN_PASSANT_SHIFT | Math.min(halfmoveClock, MAX_HALFMOVE_CLOCK) << HALFMOVE_SHIFT;
+    }
+
+    // same rule as the match: the file only counts when a pawn of the side to move can capture
+    static long enPassantKey(int square, Color side, long pawns) {
+        if (square < 0) {
+            return 0;
+        }
+        Color enemy = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        return ((Attacks.pawn(enemy, square) & pawns) != 0) ? Zobrist.enPassant(Bitboard.column(square)) : 0;
+    }
+}
@@ -0,0 +1,370 @@
+package chess;
+
+import chess.util.Attacks;
+import chess.util.Bitboard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Forsyth-Edwards Notation. The parser reads characters straight from a CharSequence or a
+// ByteBuffer into a ChessSnapshot and allocates nothing but the snapshot, so bulk jobs can load
+// millions of positions per second. Fields after the piece placement are optional.
+public class Fen {
+
+    public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final char[] PIECE_LETTERS = {'p', 'n', 'b', 'r', 'q', 'k'};
+    private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+
+    public static ChessSnapshot parse(CharSequence fen) {
+        return parse(fen, null, 0, fen.length());
+    }
+
+    // parses from the buffer's position up to the next line break or the limit, and leaves the
+    // position after the line break so a buffer with one FEN per line can be read in a loop
+    public static ChessSnapshot parse(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int end = start;
+        while (end < limit && buffer.get(end) != '\n') {
+            end++;
+        }
+        ChessSnapshot snapshot = parse(null, buffer, start, end);
+        buffer.position(Math.min(end + 1, limit));
+        return snapshot;
+    }
+
+    public static String toFen(ChessSnapshot snapshot) {
+        return append(snapshot, new StringBuilder(90)).toString();
+    }
+
+    public static StringBuilder append(ChessSnapshot snapshot, StringBuilder sb) {
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                int square = Bitboard.square(row, column);
+                PieceType type = snapshot.pieceType(square);
+                if (type == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS[type.ordinal()];
+                sb.append(snapshot.color(square) == Color.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append((char) ('0' + empty));
+            }
+            if (row < 7) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(snapshot.getSideToMove() == Color.WHITE ? " w " : " b ");
+        int rights = snapshot.getCastlingRights();
+        if (rights == 0) {
+            sb.append('-');
+        }
+        else {
+            if ((rights & ChessMatch.WHITE_KING_SIDE) != 0) {
+                sb.append('K');
+            }
+            if ((rights & ChessMatch.WHITE_QUEEN_SIDE) != 0) {
+                sb.append('Q');
+            }
+            if ((rights & ChessMatch.BLACK_KING_SIDE) != 0) {
+                sb.append('k');
+            }
+            if ((rights & ChessMatch.BLACK_QUEEN_SIDE) != 0) {
+                sb.append('q');
+            }
+        }
+
+        int enPassant = snapshot.getEnPassantSquare();
+        sb.append(' ');
+        if (enPassant < 0) {
+            sb.append('-');
+        }
+        else {
+            sb.append((char) ('a' + Bitboard.column(enPassant))).append((char) ('8' - Bitboard.row(enPassant)));
+        }
+        return sb.append(' ').append(snapshot.getHalfmoveClock()).append(' ').append(snapshot.getFullmoveNumber());
+    }
+
+    private static ChessSnapshot parse(CharSequence text, ByteBuffer bytes, int start, int end) {
+        long type0 = 0;
+        long type1 = 0;
+        long type2 = 0;
+        long black = 0;
+        long key = 0;
+        long whitePawns = 0;
+        long blackPawns = 0;
+        long whiteKings = 0;
+        long blackKings = 0;
+        long whiteRooks = 0;
+        long blackRooks = 0;
+        long knights = 0;
+        long diagonal = 0;
+        long straight = 0;
+
+        // piece placement
+        int i = skipSpaces(text, bytes, start, end);
+        int row = 0;
+        int column = 0;
+        for (; i < end; i++) {
+            char c = charAt(text, bytes, i);
+            if (c == ' ' || c == '\t') {
+                break;
+            }
+            if (c == '/') {
+                if (column != 8 || ++row > 7) {
+                    throw invalid(text, bytes, start, end, "bad rank separator");
+                }
+                column = 0;
+                continue;
+            }
+            if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 8) {
+                    throw invalid(text, bytes, start, end, "rank too long");
+                }
+                continue;
+            }
+
+            PieceType type = pieceType(c);
+            if (type == null || column > 7) {
+                throw invalid(text, bytes, start, end, "bad piece placement");
+            }
+            Color color = (c < 'a') ? Color.WHITE : Color.BLACK;
+            int square = Bitboard.square(row, column++);
+            long bit = Bitboard.bit(square);
+            int code = ChessSnapshot.code(color, type);
+            type0 |= ((code & 1) != 0) ? bit : 0;
+            type1 |= ((code & 2) != 0) ? bit : 0;
+            type2 |= ((code & 4) != 0) ? bit : 0;
+            black |= ((code & 8) != 0) ? bit : 0;
+            key ^= Zobrist.piece(color, type, square);
+
+            boolean white = color == Color.WHITE;
+            if (type == PieceType.PAWN) {
+                whitePawns |= white ? bit : 0;
+                blackPawns |= white ? 0 : bit;
+            }
+            else if (type == PieceType.KING) {
+                whiteKings |= white ? bit : 0;
+                blackKings |= white ? 0 : bit;
+            }
+            else if (type == PieceType.ROOK) {
+                whiteRooks |= white ? bit : 0;
+                blackRooks |= white ? 0 : bit;
+            }
+            knights |= (type == PieceType.KNIGHT) ? bit : 0;
+            diagonal |= (type == PieceType.BISHOP || type == PieceType.QUEEN) ? bit : 0;
+            straight |= (type == PieceType.ROOK || type == PieceType.QUEEN) ? bit : 0;
+        }
+        if (row != 7 || column != 8) {
+            throw invalid(text, bytes, start, end, "expected 8 ranks of 8 squares");
+        }
+        if (Bitboard.count(whiteKings) != 1 || Bitboard.count(blackKings) != 1) {
+            throw invalid(text, bytes, start, end, "each side needs exactly one king");
+        }
+        if (((whitePawns | blackPawns) & BACK_RANKS) != 0) {
+            throw invalid(text, bytes, start, end, "pawn on a back rank");
+        }
+
+        // side to move
+        Color side = Color.WHITE;
+        i = skipSpaces(text, bytes, i, end);
+        if (i < end) {
+            char c = charAt(text, bytes, i++);
+            if (c == 'b') {
+                side = Color.BLACK;
+            }
+            else if (c != 'w') {
+                throw invalid(text, bytes, start, end, "bad side to move");
+            }
+        }
+
+        // the side that just moved cannot have left its king in check
+        long occupied = whitePawns | blackPawns | whiteKings | blackKings | knights | diagonal | straight;
+        long attackers = (side == Color.WHITE) ? occupied & ~black : black;
+        Color defender = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        int king = Bitboard.first((side == Color.WHITE) ? blackKings : whiteKings);
+        long checkers = (Attacks.pawn(defender, king) & (whitePawns | blackPawns))
+                | (Attacks.knight(king) & knights)
+                | (Attacks.king(king) & (whiteKings | blackKings))
+                | (Attacks.bishop(king, occupied) & diagonal)
+                | (Attacks.rook(king, occupied) & straight);
+        if ((checkers & attackers) != 0) {
+            throw invalid(text, bytes, start, end, "side not to move is in check");
+        }
+
+        // castling rights, kept only when the king and rook are still on their squares
+        int rights = 0;
+        i = skipSpaces(text, bytes, i, end);
+        for (; i < end; i++) {
+            char c = charAt(text, bytes, i);
+            if (c == ' ' || c == '\t') {
+                break;
+            }
+            switch (c) {
+                case 'K':
+                    rights |= ChessMatch.WHITE_KING_SIDE;
+                    break;
+
+                case 'Q':
+                    rights |= ChessMatch.WHITE_QUEEN_SIDE;
+                    break;
+
+                case 'k':
+                    rights |= ChessMatch.BLACK_KING_SIDE;
+                    break;
+
+                case 'q':
+                    rights |= ChessMatch.BLACK_QUEEN_SIDE;
+                    break;
+
+                case '-':
+                    break;
+
+                default:
+                    throw invalid(text, bytes, start, end, "bad castling rights");
+            }
+        }
+        if (!Bitboard.contains(whiteKings, 60)) {
+            rights &= ~(ChessMatch.WHITE_KING_SIDE | ChessMatch.WHITE_QUEEN_SIDE);
+        }
+        if (!Bitboard.contains(whiteRooks, 63)) {
+            rights &= ~ChessMatch.WHITE_KING_SIDE;
+        }
+        if (!Bitboard.contains(whiteRooks, 56)) {
+            rights &= ~ChessMatch.WHITE_QUEEN_SIDE;
+        }
+        if (!Bitboard.contains(blackKings, 4)) {
+            rights &= ~(ChessMatch.BLACK_KING_SIDE | ChessMatch.BLACK_QUEEN_SIDE);
+        }
+        if (!Bitboard.contains(blackRooks, 7)) {
+            rights &= ~ChessMatch.BLACK_KING_SIDE;
+        }
+        if (!Bitboard.contains(blackRooks, 0)) {
+            rights &= ~ChessMatch.BLACK_QUEEN_SIDE;
+        }
+
+        // en passant square, on the sixth rank with white to move and the third with black, kept only
+        // when the pawn that passed over it is there and the squares it passed through are empty
+        int enPassant = -1;
+        i = skipSpaces(text, bytes, i, end);
+        if (i < end) {
+            char c = charAt(text, bytes, i++);
+            if (c != '-') {
+                char rank = (i < end) ? charAt(text, bytes, i++) : ' ';
+                if (c < 'a' || c > 'h' || rank != ((side == Color.WHITE) ? '6' : '3')) {
+                    throw invalid(text, bytes, start, end, "bad en passant square");
+                }
+                int square = Bitboard.square('8' - rank, c - 'a');
+                long pawns = (side == Color.WHITE) ? blackPawns : whitePawns;
+                int pawn = square + ((side == Color.WHITE) ? 8 : -8);
+                int origin = square - ((side == Color.WHITE) ? 8 : -8);
+                if (Bitboard.contains(pawns, pawn) && !Bitboard.contains(occupied, square)
+                        && !Bitboard.contains(occupied, origin)) {
+                    enPassant = square;
+                }
+            }
+        }
+
+        // move clocks
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        i = skipSpaces(text, bytes, i, end);
+        if (i < end) {
+            int value = 0;
+            for (; i < end && isDigit(charAt(text, bytes, i)); i++) {
+                value = Math.min(value * 10 + charAt(text, bytes, i) - '0', 1_000_000);
+            }
+            halfmoveClock = value;
+        }
+        i = skipSpaces(text, bytes, i, end);
+        if (i < end) {
+            int value = 0;
+            for (; i < end && isDigit(charAt(text, bytes, i)); i++) {
+                value = Math.min(value * 10 + charAt(text, bytes, i) - '0', 1_000_000);
+            }
+            fullmoveNumber = Math.max(value, 1);
+        }
+        if (skipSpaces(text, bytes, i, end) != end) {
+            throw invalid(text, bytes, start, end, "unexpected trailing characters");
+        }
+
+        key ^= Zobrist.castling(rights) ^
+                ChessSnapshot.enPassantKey(enPassant, side, (side == Color.WHITE) ? whitePawns : blackPawns);
+        if (side == Color.BLACK) {
+            key ^= Zobrist.side();
+        }
+        int round = 2 * (fullmoveNumber - 1) + ((side == Color.WHITE) ? 1 : 2);
+        return new ChessSnapshot(type0, type1, type2, black, key,
+                ChessSnapshot.state(side, rights, enPassant, halfmoveClock), round);
+    }
+
+    private static PieceType pieceType(char c) {
+        switch (c) {
+            case 'P': case 'p':
+                return PieceType.PAWN;
+
+            case 'N': case 'n':
+                return PieceType.KNIGHT;
+
+            case 'B': case 'b':
+                return PieceType.BISHOP;
+
+            case 'R': case 'r':
+                return PieceType.ROOK;
+
+            case 'Q': case 'q':
+                return PieceType.QUEEN;
+
+            case 'K': case 'k':
+                return PieceType.KING;
+
+            default:
+                return null;
+        }
+    }
+
+    private static char charAt(CharSequence text, ByteBuffer bytes, int index) {
+        return (text != null) ? text.charAt(index) : (char) (bytes.get(index) & 0xFF);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(CharSequence text, ByteBuffer bytes, int index, int end) {
+        while (index < end) {
+            char c = charAt(text, bytes, index);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static ChessException invalid(CharSequence text, ByteBuffer bytes, int start, int end, String reason) {
+        String fen;
+        if (text != null) {
+            fen = text.subSequence(start, end).toString();
+        }
+        else {
+            byte[] chars = new byte[end - start];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = bytes.get(start + i);
+            }
+            fen = new String(chars, StandardCharsets.ISO_8859_1);
+        }
+        return new ChessException("Invalid FEN (" + reason + "): " + fen.trim());
+    }
+}
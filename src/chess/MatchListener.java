@@ -0,0 +1,36 @@
+package chess;
+
+// Receives the moves of a match as they are played through performChessMove, replacePromotedPawn
+// and takeBack, so a consumer can keep its own view of the game up to date instead of copying the
+// board after every move. Squares are row * 8 + column, as in Move. Nothing is allocated to report
+// an event, and every method does nothing by default so a listener only overrides what it needs.
+//
+// A move reports, in order: pieceCaptured, pieceMoved, castled or enPassant, promoted, then the
+// status it left the opponent in (check, checkmate or stalemate). A different piece chosen afterwards
+// with replacePromotedPawn reports promotionChanged, then the status that replaces the move's;
+// choosing the piece the pawn was already promoted to reports nothing.
+public interface MatchListener {
+
+    default void pieceMoved(Color color, PieceType type, int from, int to) {}
+
+    default void pieceCaptured(Color color, PieceType type, int square) {}
+
+    // the rook's part of a castling; the king's is reported by pieceMoved
+    default void castled(Color color, int rookFrom, int rookTo) {}
+
+    default void enPassant(Color color, int from, int to, int capturedSquare) {}
+
+    default void promoted(Color color, PieceType type, int square) {}
+
+    // the piece promoted to was replaced by another one, see replacePromotedPawn
+    default void promotionChanged(Color color, PieceType from, PieceType to, int square) {}
+
+    default void check(Color color) {}
+
+    default void checkmate(Color winner) {}
+
+    default void stalemate() {}
+
+    // the move was taken back and the match is in the position before it
+    default void moveTakenBack(int move) {}
+}
@@ -0,0 +1,61 @@
+package chess;
+
+public class Move {
+
+    public static final int NONE = 0;
+    public static final int MAX_MOVES = 256;
+
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PUSH = 2;
+    public static final int EN_PASSANT = 4;
+    public static final int CASTLING = 8;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int of(int from, int to, int flags, PieceType promotion) {
+        return of(from, to, flags) | (promotion.ordinal() << 16);
+    }
+
+    public static int from(int move) { return move & 63; }
+    public static int to(int move) { return (move >>> 6) & 63; }
+    public static int flags(int move) { return (move >>> 12) & 15; }
+
+    public static PieceType promotion(int move) {
+        int type = (move >>> 16) & 7;
+        return type == 0 ? null : TYPES[type];
+    }
+
+    public static boolean isCapture(int move) { return (flags(move) & CAPTURE) != 0; }
+    public static boolean isPromotion(int move) { return (move >>> 16) != 0; }
+    public static boolean isCastling(int move) { return (flags(move) & CASTLING) != 0; }
+    public static boolean isEnPassant(int move) { return (flags(move) & EN_PASSANT) != 0; }
+
+    public static String toString(int move) {
+        String s = square(from(move)) + square(to(move));
+        if (isPromotion(move)) {
+            s += "pHBRQK".charAt((move >>> 16) & 7);
+        }
+        return s;
+    }
+
+    public static String toUci(int move) {
+        String s = uciSquare(from(move)) + uciSquare(to(move));
+        if (isPromotion(move)) {
+            s += "pnbrqk".charAt((move >>> 16) & 7);
+        }
+        return s;
+    }
+
+    private static String uciSquare(int square) {
+        return "" + (char) ('a' + (square & 7)) + (8 - (square >>> 3));
+    }
+
+    private static String square(int square) {
+        return "" + (char) ('A' + (square & 7)) + ((square >>> 3) + 1);
+    }
+}
@@ -0,0 +1,108 @@
+package chess;
+
+import chess.util.Attacks;
+import chess.util.Bitboard;
+
+public class MoveGenerator {
+
+    private final ChessBoard board;
+
+
+    public MoveGenerator(ChessBoard board) {
+        this.board = board;
+    }
+
+
+    public int generateLegalMoves(Color color, int[] moves) {
+        Color enemy = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long occupancy = board.occupancy();
+        int kingSquare = board.getKingSquare(color);
+
+        long checkers = board.attackers(kingSquare, enemy, occupancy);
+        long pinned = pinnedPieces(color, enemy, kingSquare);
+
+        // squares that resolve a check: capture the checker or block its ray
+        long evasions = ~0L;
+        if (checkers != 0) {
+            evasions = (Bitboard.count(checkers) > 1) ? 0 :
+                    Attacks.between(kingSquare, Bitboard.first(checkers)) | checkers;
+        }
+
+        int count = 0;
+        long pieces = board.occupancy(color);
+        while (pieces != 0) {
+            int from = Bitboard.first(pieces);
+            ChessPiece piece = board.piece(from);
+
+            // double check: only the king may move
+            if (evasions == 0 && from != kingSquare) {
+                pieces &= pieces - 1;
+                continue;
+            }
+
+            int end = piece.generateMoves(moves, count);
+            for (int i = count; i < end; i++) {
+                int move = moves[i];
+                int to = Move.to(move);
+
+                boolean legal;
+                if (from == kingSquare) {
+                    legal = isKingMoveLegal(move, enemy);
+                }
+                else if (Move.isEnPassant(move)) {
+                    legal = isEnPassantLegal(move, color, enemy, kingSquare);
+                }
+                else {
+                    legal = Bitboard.contains(evasions, to) && (!Bitboard.contains(pinned, from) ||
+                            Bitboard.contains(Attacks.line(kingSquare, from), to));
+                }
+
+                if (legal) {
+                    moves[count++] = move;
+                }
+            }
+            pieces &= pieces - 1;
+        }
+        return count;
+    }
+
+    private long pinnedPieces(Color color, Color enemy, int kingSquare) {
+        long enemies = board.occupancy(enemy);
+        long queens = board.pieces(enemy, PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, enemies) & (board.pieces(enemy, PieceType.ROOK) | queens)) |
+                (Attacks.bishop(kingSquare, enemies) & (board.pieces(enemy, PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        while (snipers != 0) {
+            long blockers = Attacks.between(kingSquare, Bitboard.first(snipers)) & board.occupancy();
+            if (Bitboard.count(blockers) == 1) {
+                pinned |= blockers & board.occupancy(color);
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    private boolean isKingMoveLegal(int move, Color enemy) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        // the king only offers castling along unattacked squares
+        if (Move.isCastling(move)) {
+            return true;
+        }
+
+        // the king must not hide behind itself on a slider's ray
+        long occupancy = board.occupancy() ^ Bitboard.bit(from);
+        return !board.isSquareAttacked(to, enemy, occupancy);
+    }
+
+    private boolean isEnPassantLegal(int move, Color color, Color enemy, int kingSquare) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int captured = to + (color == Color.WHITE ? 8 : -8);
+
+        long occupancy = (board.occupancy() ^ Bitboard.bit(from) ^ Bitboard.bit(captured)) | Bitboard.bit(to);
+        return (board.attackers(kingSquare, enemy, occupancy) & ~Bitboard.bit(captured)) == 0;
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import java.util.Arrays;
+
+// The undo records of the moves played in a match, oldest first. Each record holds what a move
+// cannot recompute when it is taken back: the pieces involved, the en passant pawn, the check flag,
+// castling rights, hashes and the halfmove clock. Records are parallel arrays that grow by doubling,
+// so playing and taking back moves does not allocate once the arrays are as long as the game.
+public class MoveHistory {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int size;
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private ChessPiece[] movedPieces = new ChessPiece[INITIAL_CAPACITY];
+    private ChessPiece[] capturedPieces = new ChessPiece[INITIAL_CAPACITY];
+    private ChessPiece[] vulnerablePawns = new ChessPiece[INITIAL_CAPACITY];
+    private boolean[] checks = new boolean[INITIAL_CAPACITY];
+    private int[] castlingRights = new int[INITIAL_CAPACITY];
+    private long[] stateKeys = new long[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] halfmoveClocks = new int[INITIAL_CAPACITY];
+
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    // the move played at the given ply of the history, 0 being the oldest
+    public int getMove(int ply) {
+        return moves[check(ply)];
+    }
+
+    public int getLastMove() {
+        return (size == 0) ? Move.NONE : moves[size - 1];
+    }
+
+    // the position key before the move at the given ply
+    public long getKey(int ply) {
+        return keys[check(ply)];
+    }
+
+    public ChessPiece getCapturedPiece(int ply) {
+        return capturedPieces[check(ply)];
+    }
+
+    // the castling rights and halfmove clock before the move at the given ply
+    public int getCastlingRights(int ply) {
+        return castlingRights[check(ply)];
+    }
+
+    public int getHalfmoveClock(int ply) {
+        return halfmoveClocks[check(ply)];
+    }
+
+    ChessPiece getMovedPiece(int ply) { return movedPieces[ply]; }
+    ChessPiece getVulnerablePawn(int ply) { return vulnerablePawns[ply]; }
+    boolean isCheck(int ply) { return checks[ply]; }
+    long getStateKey(int ply) { return stateKeys[ply]; }
+
+    void push(int move, ChessPiece movedPiece, ChessPiece capturedPiece, ChessPiece vulnerablePawn, boolean check,
+              int castlingRights, long stateKey, long key, int halfmoveClock) {
+        if (size == moves.length) {
+            grow();
+        }
+        moves[size] = move;
+        movedPieces[size] = movedPiece;
+        capturedPieces[size] = capturedPiece;
+        vulnerablePawns[size] = vulnerablePawn;
+        checks[size] = check;
+        this.castlingRights[size] = castlingRights;
+        stateKeys[size] = stateKey;
+        keys[size] = key;
+        halfmoveClocks[size] = halfmoveClock;
+        size++;
+    }
+
+    // drops the newest record; read it before
+    void pop() {
+        size--;
+        movedPieces[size] = null;
+        capturedPieces[size] = null;
+        vulnerablePawns[size] = null;
+    }
+
+    // a promotion chosen after the move was made
+    void replaceLastMove(int move) {
+        moves[size - 1] = move;
+    }
+
+    void clear() {
+        Arrays.fill(movedPieces, 0, size, null);
+        Arrays.fill(capturedPieces, 0, size, null);
+        Arrays.fill(vulnerablePawns, 0, size, null);
+        size = 0;
+    }
+
+    private int check(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("No move at ply " + ply + " of a history of " + size + " moves.");
+        }
+        return ply;
+    }
+
+    private void grow() {
+        int capacity = moves.length * 2;
+        moves = Arrays.copyOf(moves, capacity);
+        movedPieces = Arrays.copyOf(movedPieces, capacity);
+        capturedPieces = Arrays.copyOf(capturedPieces, capacity);
+        vulnerablePawns = Arrays.copyOf(vulnerablePawns, capacity);
+        checks = Arrays.copyOf(checks, capacity);
+        castlingRights = Arrays.copyOf(castlingRights, capacity);
+        stateKeys = Arrays.copyOf(stateKeys, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        halfmoveClocks = Arrays.copyOf(halfmoveClocks, capacity);
+    }
+}
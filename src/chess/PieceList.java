@@ -0,0 +1,89 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+// Pieces grouped by color and type. Every piece knows its index in its group, so adding and
+// removing are O(1): a removed piece's slot is filled with the last piece of the group.
+// Piece counts and material (in PieceType values, kings excluded) are kept as pieces come and go.
+public class PieceList {
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final ChessPiece[][] pieces = new ChessPiece[12][10];
+    private final int[] sizes = new int[12];
+    private final int[] counts = new int[2];
+    private final int[] material = new int[2];
+
+
+    public int size(Color color, PieceType type) {
+        return sizes[slot(color, type)];
+    }
+
+    public ChessPiece get(Color color, PieceType type, int index) {
+        int slot = slot(color, type);
+        if (index < 0 || index >= sizes[slot]) {
+            throw new IndexOutOfBoundsException("No " + color + " " + type + " at index " + index + ".");
+        }
+        return pieces[slot][index];
+    }
+
+    public int count(Color color) {
+        return counts[color.ordinal()];
+    }
+
+    public int getMaterial(Color color) {
+        return material[color.ordinal()];
+    }
+
+    void add(ChessPiece piece) {
+        int slot = slot(piece.getColor(), piece.getType());
+        if (sizes[slot] == pieces[slot].length) {
+            pieces[slot] = Arrays.copyOf(pieces[slot], sizes[slot] * 2);
+        }
+        piece.setListIndex(sizes[slot]);
+        pieces[slot][sizes[slot]++] = piece;
+        counts[piece.getColor().ordinal()]++;
+        material[piece.getColor().ordinal()] += piece.getType().getValue();
+    }
+
+    void remove(ChessPiece piece) {
+        int slot = slot(piece.getColor(), piece.getType());
+        int index = piece.getListIndex();
+        if (index < 0 || index >= sizes[slot] || pieces[slot][index] != piece) {
+            throw new IllegalStateException("Piece " + piece + " is not in the list.");
+        }
+        ChessPiece last = pieces[slot][--sizes[slot]];
+        pieces[slot][index] = last;
+        last.setListIndex(index);
+        pieces[slot][sizes[slot]] = null;
+        piece.setListIndex(-1);
+        counts[piece.getColor().ordinal()]--;
+        material[piece.getColor().ordinal()] -= piece.getType().getValue();
+    }
+
+    void clear() {
+        for (int slot = 0; slot < pieces.length; slot++) {
+            for (int i = 0; i < sizes[slot]; i++) {
+                pieces[slot][i].setListIndex(-1);
+                pieces[slot][i] = null;
+            }
+            sizes[slot] = 0;
+        }
+        Arrays.fill(counts, 0);
+        Arrays.fill(material, 0);
+    }
+
+    // adds the pieces of another list, in order, through a mapping such as a copy
+    void addAll(PieceList other, UnaryOperator<ChessPiece> mapping) {
+        for (int slot = 0; slot < pieces.length; slot++) {
+            for (int i = 0; i < other.sizes[slot]; i++) {
+                add(mapping.apply(other.pieces[slot][i]));
+            }
+        }
+    }
+
+    private static int slot(Color color, PieceType type) {
+        return color.ordinal() * TYPES.length + type.ordinal();
+    }
+}
@@ -0,0 +1,53 @@
+package chess;
+
+public class Zobrist {
+
+    private static final long[][][] PIECES = new long[2][6][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long SIDE;
+
+    // fixed seed: keys must be stable across runs so they can be stored
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                for (int square = 0; square < 64; square++) {
+                    PIECES[color][type][square] = nextRandom();
+                }
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = nextRandom();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = nextRandom();
+        }
+        SIDE = nextRandom();
+    }
+
+
+    public static long piece(Color color, PieceType type, int square) {
+        return PIECES[color.ordinal()][type.ordinal()][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int column) {
+        return EN_PASSANT[column];
+    }
+
+    public static long side() {
+        return SIDE;
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
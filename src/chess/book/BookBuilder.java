@@ -0,0 +1,167 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.San;
+import chess.store.CompactMove;
+import chess.store.GameStore;
+import chess.store.GameStoreWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Builds an opening book with a parallel map-reduce over a game store: every task replays a range
+// of games into its own table (map), and tables are merged as the tasks join (reduce). The merged
+// entries are written sorted by key, most played move first, for OpeningBook to map.
+public class BookBuilder {
+
+    private static final int GAMES_PER_TASK = 2048;
+
+    private final int maxPlies;
+    private final int minGames;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ChessMatch> matches = ThreadLocal.withInitial(ChessMatch::new);
+
+
+    public BookBuilder(int maxPlies, int minGames, ForkJoinPool pool) {
+        this.maxPlies = maxPlies;
+        this.minGames = minGames;
+        this.pool = pool;
+    }
+
+
+    // returns the number of book entries written
+    public long build(GameStore store, Path output) throws IOException {
+        BookTable table = pool.invoke(new BuildTask(store, 0, store.size()));
+        return write(table, output);
+    }
+
+    // PGN games are first converted into a temporary game store, which is then built in parallel
+    public long build(Path pgn, Path output) throws IOException {
+        Path temporary = Files.createTempFile("book", ".bin");
+        try {
+            try (PgnReader reader = new PgnReader(FileChannel.open(pgn, StandardOpenOption.READ));
+                 GameStoreWriter writer = new GameStoreWriter(temporary)) {
+                PgnGame game = new PgnGame();
+                San san = new San();
+                ChessMatch match = new ChessMatch();
+                while (reader.next(game)) {
+                    writer.append(game, san, match);
+                }
+            }
+            try (GameStore store = new GameStore(temporary)) {
+                return build(store, output);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+            Files.deleteIfExists(GameStore.indexPath(temporary));
+        }
+    }
+
+    private BookTable collect(GameStore store, long from, long to) {
+        ChessMatch match = matches.get();
+        BookTable table = new BookTable((int) (to - from) * Math.min(maxPlies, 40));
+        for (long id = from; id < to; id++) {
+            int result = store.getResult(id);
+            match.load(store.getStartPosition(id));
+            int plies = Math.min(store.getPlies(id), maxPlies);
+            for (int ply = 0; ply < plies; ply++) {
+                short move = store.getMove(id, ply);
+                table.add(match.positionKey(), move, relativeResult(result, match.getCurrentPlayer()));
+                match.makeMove(CompactMove.decode(move, match));
+            }
+        }
+        return table;
+    }
+
+    private static int relativeResult(int result, Color side) {
+        switch (result) {
+            case GameStore.RESULT_WHITE_WINS:
+                return (side == Color.WHITE) ? 1 : -1;
+
+            case GameStore.RESULT_BLACK_WINS:
+                return (side == Color.BLACK) ? 1 : -1;
+
+            case GameStore.RESULT_DRAW:
+                return 0;
+
+            default:
+                return 2;
+        }
+    }
+
+    private long write(BookTable table, Path output) throws IOException {
+        int[] slots = table.sortedSlots(minGames);
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(OpeningBook.ENTRY_SIZE * 4096);
+            buffer.putInt(OpeningBook.MAGIC);
+            buffer.putInt(OpeningBook.ENTRY_SIZE);
+            buffer.putLong(slots.length);
+            for (int slot : slots) {
+                if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+                    write(channel, buffer);
+                }
+                buffer.putLong(table.key(slot));
+                buffer.putShort(table.move(slot));
+                buffer.putShort((short) Math.min(table.games(slot), 0xFFFF));
+                buffer.putInt(table.wins(slot));
+                buffer.putInt(table.draws(slot));
+                buffer.putInt(table.losses(slot));
+            }
+            write(channel, buffer);
+        }
+        return slots.length;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private class BuildTask extends RecursiveTask<BookTable> {
+
+        private final GameStore store;
+        private final long from;
+        private final long to;
+
+
+        BuildTask(GameStore store, long from, long to) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected BookTable compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                return collect(store, from, to);
+            }
+            long middle = (from + to) >>> 1;
+            BuildTask left = new BuildTask(store, from, middle);
+            BuildTask right = new BuildTask(store, middle, to);
+            left.fork();
+            BookTable table = right.compute();
+            BookTable other = left.join();
+            if (other.size() > table.size()) {
+                other.merge(table);
+                return other;
+            }
+            table.merge(other);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package chess.book;
+
+import java.util.Arrays;
+
+// Open-addressing map from (position key, move) to game counts, used while building a book.
+// Each fork-join task fills its own table and the tables are merged on the way back up.
+class BookTable {
+
+    private long[] keys;
+    private short[] moves;
+    private int[] games;
+    private int[] wins;
+    private int[] draws;
+    private int[] losses;
+    private int size;
+    private int mask;
+
+
+    BookTable(int capacity) {
+        int length = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+        keys = new long[length];
+        moves = new short[length];
+        games = new int[length];
+        wins = new int[length];
+        draws = new int[length];
+        losses = new int[length];
+        mask = length - 1;
+    }
+
+
+    int size() { return size; }
+    int capacity() { return keys.length; }
+    long key(int slot) { return keys[slot]; }
+    short move(int slot) { return moves[slot]; }
+    int games(int slot) { return games[slot]; }
+    int wins(int slot) { return wins[slot]; }
+    int draws(int slot) { return draws[slot]; }
+    int losses(int slot) { return losses[slot]; }
+
+    // a slot is in use once a game has been counted in it
+    boolean used(int slot) { return games[slot] != 0; }
+
+    // result is 1, 0 or -1 from the point of view of the side that played the move, 2 when unknown
+    void add(long key, short move, int result) {
+        add(key, move, 1, (result == 1) ? 1 : 0, (result == 0) ? 1 : 0, (result == -1) ? 1 : 0);
+    }
+
+    void merge(BookTable other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used(slot)) {
+                add(other.keys[slot], other.moves[slot], other.games[slot], other.wins[slot], other.draws[slot], other.losses[slot]);
+            }
+        }
+    }
+
+    private void add(long key, short move, int gameCount, int winCount, int drawCount, int lossCount) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int slot = slot(key, move);
+        if (!used(slot)) {
+            keys[slot] = key;
+            moves[slot] = move;
+            size++;
+        }
+        games[slot] += gameCount;
+        wins[slot] += winCount;
+        draws[slot] += drawCount;
+        losses[slot] += lossCount;
+    }
+
+    private int slot(long key, short move) {
+        int slot = (int) ((key ^ (key >>> 29) ^ move * 0x9E3779B97F4A7C15L) >>> 20) & mask;
+        while (used(slot) && (keys[slot] != key || moves[slot] != move)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        short[] oldMoves = moves;
+        int[] oldGames = games;
+        int[] oldWins = wins;
+        int[] oldDraws = draws;
+        int[] oldLosses = losses;
+
+        int length = oldKeys.length * 2;
+        keys = new long[length];
+        moves = new short[length];
+        games = new int[length];
+        wins = new int[length];
+        draws = new int[length];
+        losses = new int[length];
+        mask = length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGames[i] != 0) {
+                int slot = slot(oldKeys[i], oldMoves[i]);
+                keys[slot] = oldKeys[i];
+                moves[slot] = oldMoves[i];
+                games[slot] = oldGames[i];
+                wins[slot] = oldWins[i];
+                draws[slot] = oldDraws[i];
+                losses[slot] = oldLosses[i];
+            }
+        }
+    }
+
+    // slots in use, ordered by key and then by most played first
+    int[] sortedSlots(int minGames) {
+        Integer[] slots = new Integer[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used(slot) && games[slot] >= minGames) {
+                slots[count++] = slot;
+            }
+        }
+        Arrays.sort(slots, 0, count, (a, b) -> {
+            int order = Long.compareUnsigned(keys[a], keys[b]);
+            return (order != 0) ? order : Integer.compare(games[b], games[a]);
+        });
+
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = slots[i];
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,150 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.store.CompactMove;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A book file written by BookBuilder, memory-mapped. After a 16-byte header (magic, entry size,
+// entry count) come fixed-size entries sorted by unsigned position key, most played move first:
+//
+//   key (8) | compact move (2) | games, capped at 65535 (2) | wins (4) | draws (4) | losses (4)
+//
+// Wins and losses are from the point of view of the side that plays the move. Probes are a binary
+// search over the mapping and allocate nothing, so one book can be shared by every thread.
+public class OpeningBook implements Closeable {
+
+    static final int MAGIC = 0x43424B31;
+    static final int ENTRY_SIZE = 24;
+    private static final int HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int size;
+    private final ThreadLocal<int[]> moveBuffers = ThreadLocal.withInitial(() -> new int[Move.MAX_MOVES]);
+
+
+    public OpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Book file is too large to map: " + path);
+        }
+        entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (entries.capacity() < HEADER_SIZE || entries.getInt(0) != MAGIC || entries.getInt(4) != ENTRY_SIZE) {
+            throw new IOException("Not an opening book: " + path);
+        }
+        long count = entries.getLong(8);
+        if (HEADER_SIZE + count * ENTRY_SIZE > entries.capacity()) {
+            throw new IOException("Truncated opening book: " + path);
+        }
+        size = (int) count;
+    }
+
+
+    public int size() { return size; }
+
+    public long getKey(int index) { return entries.getLong(offset(index)); }
+    public short getMove(int index) { return entries.getShort(offset(index) + 8); }
+    public int getGames(int index) { return entries.getShort(offset(index) + 10) & 0xFFFF; }
+    public int getWins(int index) { return entries.getInt(offset(index) + 12); }
+    public int getDraws(int index) { return entries.getInt(offset(index) + 16); }
+    public int getLosses(int index) { return entries.getInt(offset(index) + 20); }
+
+    // index of the first entry for the key, or -1 when the position is not in the book
+    public int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return (low < size && getKey(low) == key) ? low : -1;
+    }
+
+    // number of entries for the key starting at the index returned by find
+    public int count(int first, long key) {
+        int index = first;
+        while (index < size && getKey(index) == key) {
+            index++;
+        }
+        return index - first;
+    }
+
+    // the most played book move in the match's position, or Move.NONE
+    public int bestMove(ChessMatch match) {
+        long key = match.positionKey();
+        int first = find(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+        int[] moves = moveBuffers.get();
+        int count = match.generateMoves(moves);
+        for (int index = first; index < size && getKey(index) == key; index++) {
+            int move = legal(getMove(index), moves, count);
+            if (move != Move.NONE) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    // a book move picked with probability proportional to how often it was played; random is in [0, 1)
+    public int weightedMove(ChessMatch match, double random) {
+        long key = match.positionKey();
+        int first = find(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+        int entries = count(first, key);
+        long total = 0;
+        for (int i = 0; i < entries; i++) {
+            total += getGames(first + i);
+        }
+        long pick = (long) (random * total);
+        int index = first;
+        for (; index < first + entries - 1; index++) {
+            pick -= getGames(index);
+            if (pick < 0) {
+                break;
+            }
+        }
+        int[] moves = moveBuffers.get();
+        int move = legal(getMove(index), moves, match.generateMoves(moves));
+        return (move != Move.NONE) ? move : bestMove(match);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // guards against key collisions: the book move must be one of the legal moves
+    private static int legal(short compact, int[] moves, int count) {
+        int from = CompactMove.from(compact);
+        int to = CompactMove.to(compact);
+        boolean promotion = CompactMove.special(compact) == CompactMove.PROMOTION;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Move.from(move) == from && Move.to(move) == to &&
+                    (!promotion || CompactMove.encode(move) == compact)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static int offset(int index) {
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,412 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.PieceType;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+import java.util.Arrays;
+
+public class Engine {
+
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 30000;
+    public static final int INFINITY = 32000;
+
+    private static final int ASPIRATION_WINDOW = 30;
+    private static final int ASPIRATION_DEPTH = 5;
+    private static final int CHECK_INTERVAL = 1023;
+
+    // move ordering: hash move, then captures by MVV-LVA, then promotions, killers and history
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int PROMOTION_SCORE = 1 << 27;
+    private static final int KILLER_SCORE = 1 << 26;
+
+    private final TranspositionTable table;
+
+    // one buffer per ply so the search never allocates
+    private final int[][] moves = new int[MAX_PLY][Move.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY][Move.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+
+    private OpeningBook book;
+    private Tablebase tablebase;
+    private ChessMatch match;
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+    private boolean timeLimited;
+    private boolean hasResult;
+    private volatile boolean stopRequested;
+
+
+    public Engine() {
+        this(new TranspositionTable(64));
+    }
+
+    public Engine(TranspositionTable table) {
+        this.table = table;
+    }
+
+
+    public TranspositionTable getTable() { return table; }
+    public long getNodes() { return nodes; }
+    public OpeningBook getBook() { return book; }
+    public Tablebase getTablebase() { return tablebase; }
+
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public SearchResult search(ChessMatch match, int depth) {
+        return search(match, depth, 0);
+    }
+
+    // searches the current position of the match, which is left as it was found;
+    // a time limit of zero or less means no limit
+    public SearchResult search(ChessMatch match, int maxDepth, long millis) {
+        SearchResult bookResult = bookMove(book, match);
+        if (bookResult != null) {
+            return bookResult;
+        }
+        stopRequested = false;
+        table.newSearch();
+        return search(match, 1, maxDepth, millis);
+    }
+
+    // a book move is played without searching and reported at depth zero
+    static SearchResult bookMove(OpeningBook book, ChessMatch match) {
+        if (book == null) {
+            return null;
+        }
+        int move = book.bestMove(match);
+        return (move == Move.NONE) ? null : new SearchResult(move, 0, 0, new int[] { move }, 0, 0);
+    }
+
+    // lets a parallel search clear the stop flag before the worker thread is started
+    void reset() {
+        stopRequested = false;
+    }
+
+    // iterative deepening from startDepth; helper threads of a parallel search start at staggered depths.
+    // the caller ages the table once per top-level search, so all threads share one age
+    SearchResult search(ChessMatch match, int startDepth, int maxDepth, long millis) {
+        this.match = match;
+        long start = System.nanoTime();
+        nodes = 0;
+        aborted = false;
+        hasResult = false;
+        timeLimited = millis > 0;
+        deadline = start + millis * 1_000_000L;
+        maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY - 1));
+        for (int[] killer : killers) {
+            killer[0] = killer[1] = Move.NONE;
+        }
+        for (int[] row : history) {
+            Arrays.fill(row, 0);
+        }
+
+        SearchResult result = new SearchResult(Move.NONE, 0, 0, new int[0], 0, 0);
+        int score = 0;
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+            int delta = ASPIRATION_WINDOW;
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+            if (depth >= ASPIRATION_DEPTH && Math.abs(score) < MATE - MAX_PLY) {
+                alpha = score - delta;
+                beta = score + delta;
+            }
+            while (true) {
+                int value = negamax(depth, 0, alpha, beta);
+                if (aborted) {
+                    break;
+                }
+                if (value <= alpha) {
+                    alpha = Math.max(value - delta, -INFINITY);
+                }
+                else if (value >= beta) {
+                    beta = Math.min(value + delta, INFINITY);
+                }
+                else {
+                    score = value;
+                    break;
+                }
+                delta *= 2;
+            }
+            if (aborted) {
+                break;
+            }
+
+            int[] line = Arrays.copyOf(pv[0], pvLength[0]);
+            int bestMove = (line.length > 0) ? line[0] : Move.NONE;
+            result = new SearchResult(bestMove, score, depth, line, nodes, System.nanoTime() - start);
+            hasResult = true;
+            if (bestMove == Move.NONE || Math.abs(score) >= MATE - depth) {
+                break;
+            }
+            // the next iteration would not finish in the time that is left
+            if (timeLimited && System.nanoTime() - start > (deadline - start) / 2) {
+                break;
+            }
+        }
+        this.match = null;
+        return result;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (shouldAbort()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return match.evaluate();
+        }
+        boolean inCheck = match.isCheck();
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        nodes++;
+
+        // below the root, positions in the tablebase have an exact score
+        if (ply > 0 && tablebase != null && Long.bitCount(match.occupancy()) <= tablebase.getMaxMen()) {
+            int result = tablebase.probe(match);
+            if (result != Tablebase.UNKNOWN) {
+                return tablebaseScore(result, ply);
+            }
+        }
+
+        long key = match.positionKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int value = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = match.generateMoves(list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, i, count);
+            match.makeMove(move);
+            int value = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            match.undoMove();
+            if (aborted) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = move;
+                if (value > alpha) {
+                    alpha = value;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            storeKiller(ply, move);
+                            history[Move.from(move)][Move.to(move)] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = (best >= beta) ? TranspositionTable.LOWER_BOUND
+                : (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private static int tablebaseScore(int result, int ply) {
+        if (Tablebase.isWin(result)) {
+            return MATE - ply - Tablebase.distance(result);
+        }
+        if (Tablebase.isLoss(result)) {
+            return -MATE + ply + Tablebase.distance(result);
+        }
+        return 0;
+    }
+
+    // only captures and promotions, unless in check where every evasion is searched
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (shouldAbort()) {
+            return 0;
+        }
+        nodes++;
+        if (ply >= MAX_PLY - 1) {
+            return match.evaluate();
+        }
+
+        boolean inCheck = match.isCheck();
+        if (!inCheck) {
+            int standPat = match.evaluate();
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = match.generateMoves(list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        if (!inCheck) {
+            int tactical = 0;
+            for (int i = 0; i < count; i++) {
+                if (Move.isCapture(list[i]) || Move.isPromotion(list[i])) {
+                    list[tactical++] = list[i];
+                }
+            }
+            count = tactical;
+        }
+        scoreMoves(ply, count, Move.NONE);
+
+        int best = inCheck ? -INFINITY : alpha;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, i, count);
+            match.makeMove(move);
+            int value = -quiescence(ply + 1, -beta, -alpha);
+            match.undoMove();
+            if (aborted) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                if (value > alpha) {
+                    alpha = value;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private void scoreMoves(int ply, int count, int hashMove) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int from = Move.from(move);
+            int to = Move.to(move);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            }
+            else if (Move.isCapture(move)) {
+                PieceType victim = Move.isEnPassant(move) ? PieceType.PAWN : match.piece(to).getType();
+                PieceType attacker = match.piece(from).getType();
+                score = CAPTURE_SCORE + victim.ordinal() * 8 - attacker.ordinal();
+            }
+            else if (Move.isPromotion(move)) {
+                score = PROMOTION_SCORE + Move.promotion(move).ordinal();
+            }
+            else if (move == killers[ply][0] || move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            }
+            else {
+                score = Math.min(history[from][to], KILLER_SCORE - 1);
+            }
+            scores[i] = score;
+        }
+    }
+
+    // selection sort step: brings the best remaining move to index i
+    private int nextMove(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private boolean shouldAbort() {
+        // the first iteration always completes on time so there is a move to return
+        if (!aborted && (nodes & CHECK_INTERVAL) == 0) {
+            aborted = stopRequested || (hasResult && timeLimited && System.nanoTime() - deadline > 0);
+        }
+        return aborted;
+    }
+
+    // mate scores are stored relative to the node so they stay valid at other plies
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
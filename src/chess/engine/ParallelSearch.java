@@ -0,0 +1,113 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Lazy SMP: every thread searches the same root on its own copy of the match and they only
+// cooperate through the shared transposition table. The calling thread is the main search and
+// its result is returned; helpers start one depth ahead on odd ids so they fill the table
+// with entries the main thread needs next.
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final Engine[] engines;
+    private final ExecutorService executor;
+    private OpeningBook book;
+
+
+    public ParallelSearch(int threads) {
+        this(new TranspositionTable(64), threads);
+    }
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is required.");
+        }
+        this.table = table;
+        engines = new Engine[threads];
+        for (int i = 0; i < threads; i++) {
+            engines[i] = new Engine(table);
+        }
+        executor = (threads > 1) ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+
+    public TranspositionTable getTable() { return table; }
+    public int getThreads() { return engines.length; }
+    public OpeningBook getBook() { return book; }
+
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        for (Engine engine : engines) {
+            engine.setTablebase(tablebase);
+        }
+    }
+
+    public SearchResult search(ChessMatch match, int depth) {
+        return search(match, depth, 0);
+    }
+
+    public SearchResult search(ChessMatch match, int maxDepth, long millis) {
+        SearchResult bookResult = Engine.bookMove(book, match);
+        if (bookResult != null) {
+            return bookResult;
+        }
+        long start = System.nanoTime();
+        table.newSearch();
+
+        List<Future<SearchResult>> helpers = new ArrayList<>(engines.length - 1);
+        for (int i = 1; i < engines.length; i++) {
+            Engine engine = engines[i];
+            ChessMatch copy = new ChessMatch(match);
+            int startDepth = 1 + (i & 1);
+            engine.reset();
+            helpers.add(executor.submit(() -> engine.search(copy, startDepth, Engine.MAX_PLY - 1, 0)));
+        }
+
+        Engine main = engines[0];
+        main.reset();
+        SearchResult result = main.search(new ChessMatch(match), 1, maxDepth, millis);
+
+        for (int i = 1; i < engines.length; i++) {
+            engines[i].stop();
+        }
+        long nodes = main.getNodes();
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                helpers.get(i).get();
+                nodes += engines[i + 1].getNodes();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for search threads.", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Search thread failed.", e.getCause());
+            }
+        }
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                result.getPrincipalVariation(), nodes, System.nanoTime() - start);
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
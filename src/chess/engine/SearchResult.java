@@ -0,0 +1,63 @@
+package chess.engine;
+
+import chess.Move;
+
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+    private final long nanos;
+
+
+    public SearchResult(int bestMove, int score, int depth, int[] principalVariation, long nodes, long nanos) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+
+    public int getBestMove() { return bestMove; }
+    public int getScore() { return score; }
+    public int getDepth() { return depth; }
+    public int[] getPrincipalVariation() { return principalVariation.clone(); }
+    public long getNodes() { return nodes; }
+    public long getNanos() { return nanos; }
+
+    public long getNodesPerSecond() {
+        return (nanos == 0) ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Engine.MATE - Engine.MAX_PLY;
+    }
+
+    // moves until mate, negative when the side to move is getting mated
+    public int getMateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Engine.MATE - Math.abs(score);
+        return (score > 0) ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        sb.append(isMate() ? " score mate " + getMateIn() : " score cp " + score);
+        sb.append(" nodes ").append(nodes);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" time ").append(nanos / 1_000_000);
+        sb.append(" pv");
+        for (int move : principalVariation) {
+            sb.append(' ').append(Move.toUci(move));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // a Java array holds fewer than 2^31 longs, so the largest power-of-two table is 2^30 longs
+    public static final int MAX_MEGABYTES = 8192;
+
+    public enum Replacement { ALWAYS, DEPTH, DEPTH_AND_AGE }
+
+    // one entry is two longs: the key XORed with the data word, then the data word
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+
+    // data word layout: move (20 bits) | score (16) | depth (8) | bound (2) | age (6) | used (1)
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int AGE_SHIFT = 46;
+    private static final long USED = 1L << 52;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final Replacement replacement;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+
+    public TranspositionTable(int megabytes) {
+        this(megabytes, Replacement.DEPTH_AND_AGE);
+    }
+
+    public TranspositionTable(int megabytes, Replacement replacement) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Transposition table size must be between 1 and " + MAX_MEGABYTES + " MB.");
+        }
+        long bytes = (long) megabytes << 20;
+        long buckets = Long.highestOneBit(bytes / (ENTRY_LONGS * BUCKET_ENTRIES * Long.BYTES));
+        this.table = new long[(int) (buckets * ENTRY_LONGS * BUCKET_ENTRIES)];
+        this.bucketMask = (int) buckets - 1;
+        this.replacement = replacement;
+    }
+
+
+    public int getAge() { return age; }
+
+    public void newSearch() {
+        age = (age + 1) & 63;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        age = 0;
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    // returns the data word of the entry for this key, or 0 when there is none
+    public long probe(long key) {
+        probes.increment();
+        int bucket = bucket(key);
+        boolean occupied = false;
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int slot = bucket + i * ENTRY_LONGS;
+            long data = table[slot + 1];
+            // a torn or foreign entry fails the checksum
+            if ((table[slot] ^ data) == key && (data & USED) != 0) {
+                hits.increment();
+                return data;
+            }
+            occupied |= (data & USED) != 0;
+        }
+        if (occupied) {
+            collisions.increment();
+        }
+        return 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int bucket = bucket(key);
+        int target = -1;
+        int worst = Integer.MAX_VALUE;
+        int currentAge = age;
+
+        for (int i = 0; i < BUCKET_ENTRIES; i++) {
+            int slot = bucket + i * ENTRY_LONGS;
+            long data = table[slot + 1];
+
+            if ((data & USED) == 0 || (table[slot] ^ data) == key) {
+                // keep the old best move when the new result has none
+                if (move == 0 && (table[slot] ^ data) == key) {
+                    move = move(data);
+                }
+                target = slot;
+                break;
+            }
+
+            int value = replacementValue(data, currentAge);
+            if (value < worst) {
+                worst = value;
+                target = slot;
+            }
+        }
+
+        long data = pack(move, score, depth, bound, currentAge);
+        table[target + 1] = data;
+        table[target] = key ^ data;
+        stores.increment();
+    }
+
+    private int replacementValue(long data, int currentAge) {
+        switch (replacement) {
+            case ALWAYS:
+                return 0;
+
+            case DEPTH:
+                return depth(data);
+
+            default:
+                // entries from older searches are worth less than anything from this one
+                int ageDistance = (currentAge - age(data)) & 63;
+                return depth(data) - 8 * ageDistance;
+        }
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * ENTRY_LONGS * BUCKET_ENTRIES;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFFL) |
+                ((score & 0xFFFFL) << SCORE_SHIFT) |
+                ((long) (depth & 0xFF) << DEPTH_SHIFT) |
+                ((long) (bound & 3) << BOUND_SHIFT) |
+                ((long) (age & 63) << AGE_SHIFT) |
+                USED;
+    }
+
+    public static int move(long data) { return (int) (data & 0xFFFFF); }
+    public static int score(long data) { return (short) (data >>> SCORE_SHIFT); }
+    public static int depth(long data) { return (int) (data >>> DEPTH_SHIFT) & 0xFF; }
+    public static int bound(long data) { return (int) (data >>> BOUND_SHIFT) & 3; }
+    private static int age(long data) { return (int) (data >>> AGE_SHIFT) & 63; }
+
+    public long getProbes() { return probes.sum(); }
+    public long getHits() { return hits.sum(); }
+    public long getCollisions() { return collisions.sum(); }
+    public long getStores() { return stores.sum(); }
+
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    public double getCollisionRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) collisions.sum() / p;
+    }
+
+    // sampled over the first thousand buckets, like most engines report hashfull
+    public double getOccupancy() {
+        int buckets = Math.min(1000, bucketMask + 1);
+        int used = 0;
+        for (int b = 0; b < buckets; b++) {
+            for (int i = 0; i < BUCKET_ENTRIES; i++) {
+                long data = table[(b * BUCKET_ENTRIES + i) * ENTRY_LONGS + 1];
+                if ((data & USED) != 0 && age(data) == age) {
+                    used++;
+                }
+            }
+        }
+        return (double) used / (buckets * BUCKET_ENTRIES);
+    }
+
+    public int getSizeMegabytes() {
+        return (int) (((long) table.length * Long.BYTES) >>> 20);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TT %d MB, hit rate %.1f%%, collision rate %.1f%%, occupancy %.1f%%",
+                getSizeMegabytes(), 100 * getHitRate(), 100 * getCollisionRate(), 100 * getOccupancy());
+    }
+}
@@ -0,0 +1,92 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A concurrent histogram of latencies in nanoseconds with HDR-style buckets: values below 32 get
+// a bucket each, and every power of two above that is split into 32 buckets, so a bucket is never
+// wider than about 3% of its values. Values from 2^40 ns (about 18 minutes) on share the last bucket.
+//
+// Recording allocates nothing and takes no lock. Threads write to stripes picked by thread id, each
+// stripe a separate array of bucket counters plus count, sum and max, so threads recording the same
+// operation do not fight over a cache line. Readers add the stripes up.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private static final int COUNT = BUCKETS;
+    private static final int SUM = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 3);
+        }
+        mask = stripeCount - 1;
+    }
+
+
+    public void record(long nanos) {
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        stripe.incrementAndGet(bucket(nanos));
+        stripe.incrementAndGet(COUNT);
+        stripe.addAndGet(SUM, nanos);
+        long max = stripe.get(MAX);
+        while (nanos > max && !stripe.compareAndSet(MAX, max, nanos)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    // a consistent enough copy: stripes are read one after another while others may be recording
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            count += stripe.get(COUNT);
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new LatencySnapshot(counts, count, sum, max);
+    }
+
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        if (value >= 1L << MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // the largest value that falls into the bucket
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,57 @@
+package chess.metrics;
+
+// The state of a LatencyHistogram at one moment. Percentiles are the highest value of the bucket
+// they fall in, so they are never below the true value and at most about 3% above it.
+public class LatencySnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+
+    LatencySnapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+
+    public long getCount() { return count; }
+    public long getTotalNanos() { return totalNanos; }
+    public long getMaxNanos() { return maxNanos; }
+
+    public double getMeanNanos() {
+        return (count == 0) ? 0 : totalNanos / (double) count;
+    }
+
+    public long getP50Nanos() { return getValueAtPercentile(50); }
+    public long getP99Nanos() { return getValueAtPercentile(99); }
+    public long getP999Nanos() { return getValueAtPercentile(99.9); }
+
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d calls, mean %,.0f ns, p50 %,d ns, p99 %,d ns, p999 %,d ns, max %,d ns",
+                count, getMeanNanos(), getP50Nanos(), getP99Nanos(), getP999Nanos(), maxNanos);
+    }
+}
@@ -0,0 +1,83 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Latency histograms of the timed ChessMatch operations. Metrics start disabled unless the
+// chess.metrics system property is true; while disabled an operation costs one read of the flag
+// and one branch, so the instrumentation stays in place in every build.
+public class Metrics {
+
+    public static final String OBJECT_NAME = "chess:type=Metrics";
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[OPERATIONS.length];
+
+    private static volatile boolean enabled = Boolean.getBoolean("chess.metrics");
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+
+    private Metrics() {
+    }
+
+
+    public static boolean isEnabled() { return enabled; }
+    public static void setEnabled(boolean enabled) { Metrics.enabled = enabled; }
+
+    // records the time since start, a System.nanoTime() taken when the operation began
+    public static void record(Operation operation, long start) {
+        HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public static LatencySnapshot snapshot(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()].snapshot();
+    }
+
+    public static Map<Operation, LatencySnapshot> snapshot() {
+        Map<Operation, LatencySnapshot> snapshots = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONS) {
+            snapshots.put(operation, snapshot(operation));
+        }
+        return snapshots;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    // one line per operation that has been called
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation operation : OPERATIONS) {
+            LatencySnapshot snapshot = snapshot(operation);
+            if (snapshot.getCount() > 0) {
+                sb.append(String.format("%-20s %s%n", operation.getMethodName(), snapshot));
+            }
+        }
+        return sb.toString();
+    }
+
+    // makes the metrics visible to JMX clients such as jconsole; registering again does nothing
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+        }
+        catch (InstanceAlreadyExistsException e) {
+            // already registered
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBean.", e);
+        }
+    }
+}
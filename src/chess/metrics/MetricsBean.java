@@ -0,0 +1,34 @@
+package chess.metrics;
+
+class MetricsBean implements MetricsMXBean {
+
+    @Override
+    public boolean isEnabled() { return Metrics.isEnabled(); }
+
+    @Override
+    public void setEnabled(boolean enabled) { Metrics.setEnabled(enabled); }
+
+    @Override
+    public void reset() { Metrics.reset(); }
+
+    @Override
+    public LatencySnapshot getPerformChessMove() { return Metrics.snapshot(Operation.PERFORM_CHESS_MOVE); }
+
+    @Override
+    public LatencySnapshot getPossibleMoves() { return Metrics.snapshot(Operation.POSSIBLE_MOVES); }
+
+    @Override
+    public LatencySnapshot getTestCheck() { return Metrics.snapshot(Operation.TEST_CHECK); }
+
+    @Override
+    public LatencySnapshot getTestCheckmate() { return Metrics.snapshot(Operation.TEST_CHECKMATE); }
+
+    @Override
+    public LatencySnapshot getMakeMove() { return Metrics.snapshot(Operation.MAKE_MOVE); }
+
+    @Override
+    public LatencySnapshot getUndoMove() { return Metrics.snapshot(Operation.UNDO_MOVE); }
+
+    @Override
+    public LatencySnapshot getReplacePromotedPawn() { return Metrics.snapshot(Operation.REPLACE_PROMOTED_PAWN); }
+}
@@ -0,0 +1,25 @@
+package chess.metrics;
+
+// The JMX view of Metrics; every operation is an attribute holding its latency snapshot.
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    LatencySnapshot getPerformChessMove();
+
+    LatencySnapshot getPossibleMoves();
+
+    LatencySnapshot getTestCheck();
+
+    LatencySnapshot getTestCheckmate();
+
+    LatencySnapshot getMakeMove();
+
+    LatencySnapshot getUndoMove();
+
+    LatencySnapshot getReplacePromotedPawn();
+}
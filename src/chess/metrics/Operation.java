@@ -0,0 +1,23 @@
+package chess.metrics;
+
+// The ChessMatch operations that are timed when metrics are enabled.
+public enum Operation {
+
+    PERFORM_CHESS_MOVE("performChessMove"),
+    POSSIBLE_MOVES("possibleMoves"),
+    TEST_CHECK("testCheck"),
+    TEST_CHECKMATE("testCheckmate"),
+    MAKE_MOVE("makeMove"),
+    UNDO_MOVE("undoMove"),
+    REPLACE_PROMOTED_PAWN("replacePromotedPawn");
+
+    private final String methodName;
+
+    Operation(String methodName) {
+        this.methodName = methodName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+}
@@ -0,0 +1,60 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+
+// Checks that every move of a game is legal, that check and mate suffixes are true and that the
+// result agrees with a final checkmate or stalemate. The match and SAN buffers are reused between
+// games, so one validator belongs to one thread.
+public class GameValidator {
+
+    private final San san = new San();
+    private ChessMatch match;
+
+
+    // returns the number of plies played; throws ChessException for an invalid game
+    public int validate(PgnGame game) {
+        if (match == null) {
+            match = new ChessMatch(game.getStartPosition());
+        }
+        else {
+            match.load(game.getStartPosition());
+        }
+
+        CharSequence movetext = game.getMovetext();
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            game.play(match, san, i);
+
+            char suffix = lastNonAnnotation(movetext, game.getMoveStart(i), game.getMoveEnd(i));
+            if (suffix == '#' && !match.isCheckmate()) {
+                throw new ChessException("Ply " + (i + 1) + " (" + game.getMove(i) + "): claims mate but is not checkmate.");
+            }
+            if (suffix == '+' && !match.isCheck()) {
+                throw new ChessException("Ply " + (i + 1) + " (" + game.getMove(i) + "): claims check but gives none.");
+            }
+            if ((match.isCheckmate() || match.isStalemate()) && i < game.getMoveCount() - 1) {
+                throw new ChessException("Ply " + (i + 2) + " (" + game.getMove(i + 1) + "): the game is already over.");
+            }
+        }
+
+        String result = game.getResult();
+        if (match.isCheckmate()) {
+            String expected = (match.getWinner() == Color.WHITE) ? "1-0" : "0-1";
+            if (!result.equals(expected) && !result.equals("*")) {
+                throw new ChessException("Result " + result + " does not match checkmate, expected " + expected + ".");
+            }
+        }
+        else if (match.isStalemate() && !result.equals("1/2-1/2") && !result.equals("*")) {
+            throw new ChessException("Result " + result + " does not match stalemate, expected 1/2-1/2.");
+        }
+        return game.getMoveCount();
+    }
+
+    private static char lastNonAnnotation(CharSequence text, int start, int end) {
+        while (end > start && (text.charAt(end - 1) == '!' || text.charAt(end - 1) == '?')) {
+            end--;
+        }
+        return (end > start) ? text.charAt(end - 1) : ' ';
+    }
+}
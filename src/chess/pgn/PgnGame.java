@@ -0,0 +1,132 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.ChessSnapshot;
+import chess.Fen;
+import chess.Move;
+import chess.PieceType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// One game of a PGN archive: its tags, the SAN tokens of the main line and the result.
+// Readers fill the same instance game after game, so its buffers only grow to the longest game.
+public class PgnGame {
+
+    private final List<String> tagNames = new ArrayList<>();
+    private final List<String> tagValues = new ArrayList<>();
+    private final StringBuilder movetext = new StringBuilder(1024);
+    private int[] moveStarts = new int[256];
+    private int[] moveEnds = new int[256];
+    private int moveCount;
+    private String result = "*";
+
+
+    public void clear() {
+        tagNames.clear();
+        tagValues.clear();
+        movetext.setLength(0);
+        moveCount = 0;
+        result = "*";
+    }
+
+    public int getTagCount() { return tagNames.size(); }
+    public String getTagName(int index) { return tagNames.get(index); }
+    public String getTagValue(int index) { return tagValues.get(index); }
+
+    public String getTag(String name) {
+        int index = tagNames.indexOf(name);
+        return (index >= 0) ? tagValues.get(index) : null;
+    }
+
+    public void setTag(String name, String value) {
+        int index = tagNames.indexOf(name);
+        if (index >= 0) {
+            tagValues.set(index, value);
+        }
+        else {
+            tagNames.add(name);
+            tagValues.add(value);
+        }
+    }
+
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+
+    public int getMoveCount() { return moveCount; }
+    public CharSequence getMovetext() { return movetext; }
+    public int getMoveStart(int index) { return moveStarts[index]; }
+    public int getMoveEnd(int index) { return moveEnds[index]; }
+
+    public String getMove(int index) {
+        return movetext.substring(moveStarts[index], moveEnds[index]);
+    }
+
+    public void addMove(CharSequence san) {
+        beginMove();
+        movetext.append(san);
+        endMove();
+    }
+
+    // the FEN tag when there is one, the initial position otherwise
+    public ChessSnapshot getStartPosition() {
+        String fen = getTag("FEN");
+        return Fen.parse(fen != null ? fen : Fen.INITIAL_POSITION);
+    }
+
+    // plays the main line through performChessMove, so every move gets the same validation as
+    // moves entered in the UI; returns the match at the final position
+    public ChessMatch replay(San san) {
+        ChessMatch match = new ChessMatch(getStartPosition());
+        replay(match, san);
+        return match;
+    }
+
+    public void replay(ChessMatch match, San san) {
+        for (int i = 0; i < moveCount; i++) {
+            play(match, san, i);
+        }
+    }
+
+    // plays the move at the index, reporting any failure with its ply
+    void play(ChessMatch match, San san, int index) {
+        try {
+            int move = san.decode(match, movetext, moveStarts[index], moveEnds[index]);
+            match.performChessMove(ChessPosition.fromSquare(Move.from(move)), ChessPosition.fromSquare(Move.to(move)));
+            PieceType promotion = Move.promotion(move);
+            if (promotion != null && promotion != PieceType.QUEEN) {
+                match.replacePromotedPawn(promotion == PieceType.KNIGHT ? "H" : promotion == PieceType.BISHOP ? "B" : "R");
+            }
+        }
+        catch (ChessException e) {
+            throw new ChessException("Ply " + (index + 1) + " (" + getMove(index) + "): " + e.getMessage());
+        }
+    }
+
+    void beginMove() {
+        if (moveCount == moveStarts.length) {
+            moveStarts = Arrays.copyOf(moveStarts, moveCount * 2);
+            moveEnds = Arrays.copyOf(moveEnds, moveCount * 2);
+        }
+        if (movetext.length() > 0) {
+            movetext.append(' ');
+        }
+        moveStarts[moveCount] = movetext.length();
+    }
+
+    void appendToMove(char c) {
+        movetext.append(c);
+    }
+
+    void endMove() {
+        moveEnds[moveCount++] = movetext.length();
+    }
+
+    // drops a token that turned out not to be a move
+    void cancelMove() {
+        movetext.setLength(moveStarts[moveCount] > 0 ? moveStarts[moveCount] - 1 : 0);
+    }
+}
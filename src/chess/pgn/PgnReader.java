@@ -0,0 +1,255 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Streams games out of a PGN archive one at a time. Only the main line is kept: comments,
+// variations, NAGs and move numbers are skipped. Memory is the read buffer plus the largest game.
+public class PgnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] tagBytes = new byte[256];
+    private final StringBuilder tagName = new StringBuilder(32);
+    private int pushedBack = -1;
+    private long gamesRead;
+
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+    }
+
+
+    public long getGamesRead() { return gamesRead; }
+
+    // fills the game with the next game of the archive; false when there is none left
+    public boolean next(PgnGame game) throws IOException {
+        game.clear();
+        boolean inGame = false;
+        boolean inMovetext = false;
+
+        while (true) {
+            int c = skipWhitespace();
+            if (c < 0) {
+                if (inGame) {
+                    gamesRead++;
+                }
+                return inGame;
+            }
+
+            switch (c) {
+                case '[':
+                    // a tag after movetext without a result starts the next game
+                    if (inMovetext) {
+                        pushedBack = c;
+                        gamesRead++;
+                        return true;
+                    }
+                    readTag(game);
+                    inGame = true;
+                    continue;
+
+                case ';':
+                case '%':
+                    skipPast('\n');
+                    continue;
+
+                case '{':
+                    skipPast('}');
+                    continue;
+
+                case '(':
+                    skipVariation();
+                    continue;
+
+                case '$':
+                    readToken(null);
+                    continue;
+
+                case ')':
+                case ']':
+                case '}':
+                    continue;
+
+                default:
+                    pushedBack = c;
+            }
+
+            inGame = true;
+            inMovetext = true;
+            game.beginMove();
+            readToken(game);
+            int start = game.getMoveStart(game.getMoveCount());
+            CharSequence text = game.getMovetext();
+            int end = text.length();
+
+            String result = result(text, start, end);
+            if (result != null) {
+                game.cancelMove();
+                game.setResult(result);
+                gamesRead++;
+                return true;
+            }
+
+            // move numbers such as "12." or "12...", possibly glued to the move as in "12.Nf3"
+            int i = start;
+            while (i < end && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                i++;
+            }
+            if (i > start && i < end && text.charAt(i - 1) != '.') {
+                i = start;
+            }
+            if (i == end) {
+                game.cancelMove();
+            }
+            else if (i > start) {
+                String move = text.subSequence(i, end).toString();
+                game.cancelMove();
+                game.addMove(move);
+            }
+            else {
+                game.endMove();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static String result(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length == 1 && text.charAt(start) == '*') {
+            return "*";
+        }
+        if (length == 3 && text.charAt(start + 1) == '-') {
+            char first = text.charAt(start);
+            char last = text.charAt(start + 2);
+            if (first == '1' && last == '0') {
+                return "1-0";
+            }
+            if (first == '0' && last == '1') {
+                return "0-1";
+            }
+        }
+        if (length == 7 && text.charAt(start) == '1' && text.charAt(start + 1) == '/' && text.charAt(start + 3) == '-') {
+            return "1/2-1/2";
+        }
+        return null;
+    }
+
+    // reads up to whitespace or a structural character, appending to the game unless it is null
+    private void readToken(PgnGame game) throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return;
+            }
+            if (c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';') {
+                if (c > ' ') {
+                    pushedBack = c;
+                }
+                return;
+            }
+            if (game != null) {
+                game.appendToMove((char) c);
+            }
+        }
+    }
+
+    private void readTag(PgnGame game) throws IOException {
+        tagName.setLength(0);
+        int c = skipWhitespace();
+        while (c > ' ' && c != '"' && c != ']') {
+            tagName.append((char) c);
+            c = read();
+        }
+        while (c >= 0 && c != '"' && c != ']') {
+            c = read();
+        }
+
+        int length = 0;
+        if (c == '"') {
+            for (c = read(); c >= 0 && c != '"'; c = read()) {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (length == tagBytes.length) {
+                    tagBytes = Arrays.copyOf(tagBytes, length * 2);
+                }
+                tagBytes[length++] = (byte) c;
+            }
+            skipPast(']');
+        }
+        game.setTag(tagName.toString(), new String(tagBytes, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0) {
+                return;
+            }
+            if (c == '(') {
+                depth++;
+            }
+            else if (c == ')') {
+                depth--;
+            }
+            else if (c == '{') {
+                skipPast('}');
+            }
+            else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        }
+        while (c >= 0 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        }
+        while (c >= 0 && c <= ' ');
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            }
+            while (n == 0);
+            buffer.flip();
+            if (n < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+}
@@ -0,0 +1,136 @@
+package chess.pgn;
+
+import chess.ChessSnapshot;
+import chess.Color;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Writes games in export format: tags, then the movetext with move numbers wrapped at 80 columns.
+// Output goes through a fixed buffer, so memory does not grow with the archive.
+public class PgnWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int LINE_LENGTH = 79;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+    private final StringBuilder token = new StringBuilder(16);
+    private long gamesWritten;
+
+
+    public PgnWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+
+    public long getGamesWritten() { return gamesWritten; }
+
+    public void write(PgnGame game) throws IOException {
+        for (int i = 0; i < game.getTagCount(); i++) {
+            line.setLength(0);
+            line.append('[').append(game.getTagName(i)).append(" \"");
+            String value = game.getTagValue(i);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '"' || c == '\\') {
+                    line.append('\\');
+                }
+                line.append(c);
+            }
+            line.append("\"]");
+            writeLine();
+        }
+        if (game.getTagCount() > 0) {
+            writeLine();
+        }
+
+        int moveNumber = 1;
+        boolean white = true;
+        if (game.getTag("FEN") != null) {
+            ChessSnapshot start = game.getStartPosition();
+            moveNumber = start.getFullmoveNumber();
+            white = start.getSideToMove() == Color.WHITE;
+        }
+
+        line.setLength(0);
+        CharSequence movetext = game.getMovetext();
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            token.setLength(0);
+            if (white) {
+                token.append(moveNumber).append(". ");
+            }
+            else if (i == 0) {
+                token.append(moveNumber).append("... ");
+            }
+            token.append(movetext, game.getMoveStart(i), game.getMoveEnd(i));
+            appendToken();
+            if (!white) {
+                moveNumber++;
+            }
+            white = !white;
+        }
+        token.setLength(0);
+        token.append(game.getResult());
+        appendToken();
+        writeLine();
+        writeLine();
+        gamesWritten++;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void appendToken() throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_LENGTH) {
+            writeLine();
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    private void writeLine() throws IOException {
+        line.append('\n');
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            }
+            else {
+                int end = (Character.isHighSurrogate(c) && i + 1 < line.length()) ? i + 2 : i + 1;
+                byte[] bytes = line.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                i = end - 1;
+                for (byte b : bytes) {
+                    put(b);
+                }
+            }
+        }
+        line.setLength(0);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+}
@@ -0,0 +1,54 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+// Reads [start, end) of a file with positional reads, so many regions of one FileChannel
+// can be read by different threads at the same time.
+class RegionChannel implements ReadableByteChannel {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+
+    RegionChannel(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+    }
+
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        int limit = dst.limit();
+        if (dst.remaining() > end - position) {
+            dst.limit(dst.position() + (int) (end - position));
+        }
+        try {
+            int n = channel.read(dst, position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+        finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    // the shared channel is closed by its owner
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,188 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.util.Bitboard;
+
+// Standard algebraic notation, always relative to the position of the given match.
+// An instance keeps its own move buffer, so use one per thread.
+public class San {
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final int[] moves = new int[Move.MAX_MOVES];
+
+
+    public int decode(ChessMatch match, CharSequence san) {
+        return decode(match, san, 0, san.length());
+    }
+
+    // finds the legal move written in san[start, end); annotations such as +, #, ! and ? are ignored
+    public int decode(ChessMatch match, CharSequence san, int start, int end) {
+        while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int count = match.generateMoves(moves);
+
+        char first = (end > start) ? san.charAt(start) : ' ';
+        if (first == 'O' || first == '0') {
+            boolean kingSide = end - start == 3;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (Move.isCastling(move) && (Move.to(move) > Move.from(move)) == kingSide) {
+                    return move;
+                }
+            }
+            throw illegal(san, start, end);
+        }
+
+        int i = start;
+        PieceType type = PieceType.PAWN;
+        int letter = PIECE_LETTERS.indexOf(first);
+        if (letter > 0) {
+            type = TYPES[letter];
+            i++;
+        }
+
+        PieceType promotion = null;
+        if (type == PieceType.PAWN && end - i >= 3) {
+            int promotionLetter = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+            if (promotionLetter > 0 && promotionLetter < 5) {
+                promotion = TYPES[promotionLetter];
+                end -= (san.charAt(end - 2) == '=') ? 2 : 1;
+            }
+        }
+
+        if (end - i < 2) {
+            throw illegal(san, start, end);
+        }
+        int toFile = san.charAt(end - 2) - 'a';
+        int toRank = san.charAt(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            throw illegal(san, start, end);
+        }
+        int to = Bitboard.square(7 - toRank, toFile);
+
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int j = i; j < end - 2; j++) {
+            char c = san.charAt(j);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            }
+            else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            }
+            else if (c != 'x' && c != '-' && c != ':') {
+                throw illegal(san, start, end);
+            }
+        }
+
+        int found = Move.NONE;
+        for (int j = 0; j < count; j++) {
+            int move = moves[j];
+            int from = Move.from(move);
+            if (Move.to(move) != to || match.piece(from).getType() != type ||
+                    Move.promotion(move) != promotion ||
+                    (fromFile >= 0 && Bitboard.column(from) != fromFile) ||
+                    (fromRank >= 0 && 7 - Bitboard.row(from) != fromRank)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                throw new ChessException("Ambiguous SAN move: " + san.subSequence(start, end));
+            }
+            found = move;
+        }
+        if (found == Move.NONE) {
+            throw illegal(san, start, end);
+        }
+        return found;
+    }
+
+    public String encode(ChessMatch match, int move) {
+        return append(match, move, new StringBuilder(8)).toString();
+    }
+
+    // appends the move, which must be legal in the match's current position, with its check or mate suffix
+    public StringBuilder append(ChessMatch match, int move, StringBuilder sb) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        if (Move.isCastling(move)) {
+            sb.append((to > from) ? "O-O" : "O-O-O");
+        }
+        else {
+            ChessPiece piece = match.piece(from);
+            PieceType type = piece.getType();
+            if (type == PieceType.PAWN) {
+                if (Move.isCapture(move)) {
+                    sb.append(file(from)).append('x');
+                }
+            }
+            else {
+                sb.append(PIECE_LETTERS.charAt(type.ordinal()));
+                appendDisambiguation(match, move, type, sb);
+                if (Move.isCapture(move)) {
+                    sb.append('x');
+                }
+            }
+            sb.append(file(to)).append(rank(to));
+            if (Move.isPromotion(move)) {
+                sb.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move).ordinal()));
+            }
+        }
+
+        match.makeMove(move);
+        if (match.isCheck()) {
+            sb.append(match.generateMoves(moves) == 0 ? '#' : '+');
+        }
+        match.undoMove();
+        return sb;
+    }
+
+    private void appendDisambiguation(ChessMatch match, int move, PieceType type, StringBuilder sb) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int count = match.generateMoves(moves);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (Move.to(moves[i]) != to || other == from || match.piece(other).getType() != type) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= Bitboard.column(other) == Bitboard.column(from);
+            sameRank |= Bitboard.row(other) == Bitboard.row(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            sb.append(file(from));
+        }
+        else if (!sameRank) {
+            sb.append(rank(from));
+        }
+        else {
+            sb.append(file(from)).append(rank(from));
+        }
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + Bitboard.column(square));
+    }
+
+    private static char rank(int square) {
+        return (char) ('8' - Bitboard.row(square));
+    }
+
+    private static ChessException illegal(CharSequence san, int start, int end) {
+        return new ChessException("Illegal SAN move: " + san.subSequence(start, end));
+    }
+}
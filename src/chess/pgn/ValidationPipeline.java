@@ -0,0 +1,169 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Validates a PGN archive in parallel. The file is cut into chunks that start at game boundaries
+// and each fork-join task reads its own chunk with positional reads, so parsing is parallel too.
+// Every worker thread keeps one reusable game and validator; counters are LongAdders and errors
+// go to a lock-free queue. A bad game is counted and reported but never stops its chunk.
+public class ValidationPipeline {
+
+    private static final long TARGET_CHUNK_SIZE = 1 << 22;
+    private static final int CHUNKS_PER_THREAD = 8;
+    private static final int MAX_ERRORS = 1000;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<PgnGame> games = ThreadLocal.withInitial(PgnGame::new);
+    private final ThreadLocal<GameValidator> validators = ThreadLocal.withInitial(GameValidator::new);
+
+
+    public ValidationPipeline(int parallelism) {
+        this(new ForkJoinPool(parallelism));
+    }
+
+    public ValidationPipeline(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+
+    public int getParallelism() { return pool.getParallelism(); }
+
+    public ValidationReport validate(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD,
+                    (size + TARGET_CHUNK_SIZE - 1) / TARGET_CHUNK_SIZE));
+            long[] bounds = new long[chunks + 1];
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = Math.max(bounds[i - 1], nextGame(channel, size * i / chunks, size));
+            }
+            bounds[chunks] = size;
+
+            Stats stats = new Stats();
+            pool.invoke(new ChunkTask(channel, bounds, 0, chunks, stats));
+
+            List<String> errors = new ArrayList<>(stats.errors);
+            return new ValidationReport(stats.games.sum(), stats.invalidGames.sum(), stats.moves.sum(),
+                    System.nanoTime() - start, errors);
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void validateChunk(FileChannel channel, long start, long end, Stats stats) {
+        PgnGame game = games.get();
+        GameValidator validator = validators.get();
+        try (PgnReader reader = new PgnReader(new RegionChannel(channel, start, end))) {
+            while (reader.next(game)) {
+                stats.games.increment();
+                try {
+                    stats.moves.add(validator.validate(game));
+                }
+                catch (RuntimeException e) {
+                    stats.invalidGames.increment();
+                    stats.error(describe(game) + ": " + e.getMessage());
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            stats.error("Bytes " + start + "-" + end + ": " + e);
+        }
+    }
+
+    private static String describe(PgnGame game) {
+        String white = game.getTag("White");
+        String black = game.getTag("Black");
+        String round = game.getTag("Round");
+        return (white != null ? white : "?") + " - " + (black != null ? black : "?") +
+                (round != null ? " (round " + round + ")" : "");
+    }
+
+    // the first tag line after movetext at or after the offset; a tag line directly after
+    // another one may be in the middle of a game header, so it does not count
+    private static long nextGame(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long position = offset;
+        boolean lineStart = offset == 0;
+        boolean previousLineIsTag = true;
+
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = buffer.get(i);
+                if (lineStart && b != '\n' && b != '\r') {
+                    if (b == '[' && !previousLineIsTag) {
+                        return position + i;
+                    }
+                    previousLineIsTag = b == '[';
+                }
+                lineStart = b == '\n';
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    private class ChunkTask extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final Stats stats;
+
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, Stats stats) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.stats = stats;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                validateChunk(channel, bounds[from], bounds[to], stats);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(channel, bounds, from, middle, stats),
+                    new ChunkTask(channel, bounds, middle, to, stats));
+        }
+    }
+
+    private static class Stats {
+
+        private final LongAdder games = new LongAdder();
+        private final LongAdder invalidGames = new LongAdder();
+        private final LongAdder moves = new LongAdder();
+        private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger errorCount = new AtomicInteger();
+
+
+        void error(String message) {
+            if (errorCount.getAndIncrement() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package chess.pgn;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ValidationReport {
+
+    private final long games;
+    private final long invalidGames;
+    private final long moves;
+    private final long nanos;
+    private final List<String> errors;
+
+
+    public ValidationReport(long games, long invalidGames, long moves, long nanos, List<String> errors) {
+        this.games = games;
+        this.invalidGames = invalidGames;
+        this.moves = moves;
+        this.nanos = nanos;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+
+    public long getGames() { return games; }
+    public long getValidGames() { return games - invalidGames; }
+    public long getInvalidGames() { return invalidGames; }
+    public long getMoves() { return moves; }
+    public long getNanos() { return nanos; }
+
+    // the first errors found, one line per invalid game
+    public List<String> getErrors() { return errors; }
+
+    public double getGamesPerSecond() {
+        return games / Math.max(nanos / 1e9, 1e-9);
+    }
+
+    public double getMovesPerSecond() {
+        return moves / Math.max(nanos / 1e9, 1e-9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d games (%,d invalid), %,d moves in %.3f s (%,.0f games/s, %,.0f moves/s)",
+                games, invalidGames, moves, nanos / 1e9, getGamesPerSecond(), getMovesPerSecond());
+    }
+}
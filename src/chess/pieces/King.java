@@ -1,29 +1,28 @@
 package chess.pieces;
 
-import boardgame.Board;
-import boardgame.Position;
-import chess.ChessMatch;
+import chess.ChessBoard;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
+import chess.util.Attacks;
+import chess.util.Bitboard;
 
 public class King extends ChessPiece {
 
-    private final ChessMatch chessMatch;
-
-    public King(Board board, Color color, ChessMatch chessMatch) {
+    public King(ChessBoard board, Color color) {
         super(board, color);
-        this.chessMatch = chessMatch;
     }
 
 
-    public boolean canMoveTo(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
+    private boolean testRookCastling(int square) {
+        ChessPiece p = getBoard().piece(square);
+        return p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
     }
 
-    private boolean testRookCastling(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+    private boolean canPassThrough(int square) {
+        return !Bitboard.contains(getBoard().occupancy(), square) &&
+                !getBoard().isSquareAttacked(square, opponent());
     }
 
     @Override
@@ -32,90 +31,45 @@ public class King extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        // up
-        p.setValues(position.getRow() - 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // down
-        p.setValues(position.getRow() + 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // left
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // right
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
+    public PieceType getType() {
+        return PieceType.KING;
+    }
 
-        // upleft
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
+    @Override
+    public long moves() {
+        int square = getSquare();
+        long moves = Attacks.king(square) & emptyOrEnemy();
 
-        // upright
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
+        if (getMoveCount() != 0 || Bitboard.column(square) != 4 ||
+                getBoard().isSquareAttacked(square, opponent())) {
+            return moves;
         }
 
-        // downleft
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
+        // castling short
+        if (testRookCastling(square + 3) && canPassThrough(square + 1) && canPassThrough(square + 2)) {
+            moves |= Bitboard.bit(square + 2);
         }
 
-        // downright
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMoveTo(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
+        // castling long
+        if (testRookCastling(square - 4) && canPassThrough(square - 1) && canPassThrough(square - 2) &&
+                !Bitboard.contains(getBoard().occupancy(), square - 3)) {
+            moves |= Bitboard.bit(square - 2);
         }
 
-        // castling short
-        if (getMoveCount() == 0 && !chessMatch.isCheck()) {
-            p.setValues(position.getRow(), position.getColumn() + 3);
-            if (testRookCastling(p)) {
-                p.setValues(position.getRow(), position.getColumn() + 1);
-                if (!getBoard().thereIsAPiece(p) && !chessMatch.willCastleCheck(getColor(), position, p)) {
-                    p.setValues(position.getRow(), position.getColumn() + 2);
-                    if (!getBoard().thereIsAPiece(p) && !chessMatch.willCastleCheck(getColor(), position, p)) {
-                        matrix[p.getRow()][p.getColumn()] = true;
-                    }
-                }
-            }
-        }
+        return moves;
+    }
 
-        // castling long
-        if (getMoveCount() == 0 && !chessMatch.isCheck()) {
-            p.setValues(position.getRow(), position.getColumn() - 4);
-            if (testRookCastling(p)) {
-                p.setValues(position.getRow(), position.getColumn() - 1);
-                if (!getBoard().thereIsAPiece(p) && !chessMatch.willCastleCheck(getColor(), position, p)) {
-                    p.setValues(position.getRow(), position.getColumn() - 2);
-                    if (!getBoard().thereIsAPiece(p) && !chessMatch.willCastleCheck(getColor(), position, p)) {
-                        p.setValues(position.getRow(), position.getColumn() - 3);
-                        if (!getBoard().thereIsAPiece(p)) {
-                            matrix[p.getRow()][p.getColumn() + 1] = true;
-                        }
-                    }
-                }
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        int from = getSquare();
+        int start = count;
+        count = super.generateMoves(moves, count);
+        for (int i = start; i < count; i++) {
+            int to = Move.to(moves[i]);
+            if (Math.abs(to - from) == 2) {
+                moves[i] = Move.of(from, to, Move.CASTLING);
             }
         }
-
-        return matrix;
+        return count;
     }
 }
@@ -1,16 +1,19 @@
 package chess.pieces;
 
-import boardgame.Board;
-import boardgame.Position;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
+import chess.util.Attacks;
+import chess.util.Bitboard;
 
 public class Pawn extends ChessPiece {
 
     private ChessMatch chessMatch;
 
-    public Pawn(Board board, Color color, ChessMatch chessMatch) {
+    public Pawn(ChessBoard board, Color color, ChessMatch chessMatch) {
         super(board, color);
         this.chessMatch = chessMatch;
     }
@@ -20,90 +23,86 @@ public class Pawn extends ChessPiece {
     public String toString() { return "p"; }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
 
-        Position p = new Position(0, 0);
+    @Override
+    public long moves() {
+        ChessBoard board = getBoard();
+        int square = getSquare();
+        long empty = ~board.occupancy();
+        long moves;
 
         switch (getColor()) {
             case WHITE:
                 // movement
-                p.setValues(position.getRow() - 1, position.getColumn());
-                if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
-                }
-                if (getMoveCount() == 0) {
-                    p.setValues(position.getRow() - 2, position.getColumn());
-                    if (matrix[p.getRow() + 1][p.getColumn()] && !getBoard().thereIsAPiece(p)) {
-                        matrix[p.getRow()][p.getColumn()] = true;
-                    }
-                }
-
-                // capture
-                p.setValues(position.getRow() - 1, position.getColumn() - 1);
-                if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
+                moves = (Bitboard.bit(square) >>> 8) & empty;
+                if (Bitboard.row(square) == 6) {
+                    moves |= (moves >>> 8) & empty;
                 }
-                p.setValues(position.getRow() - 1, position.getColumn() + 1);
-                if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
-                }
-
-                // en passant
-                if (position.getRow() == 3) {
-                    p.setValues(position.getRow(), position.getColumn() - 1);
-                    if (getBoard().positionExists(p) && isThereAnEnemy(p) &&
-                            getBoard().piece(p) == chessMatch.getVulnerablePawn()) {
-                        matrix[p.getRow() - 1][p.getColumn()] = true;
-                    }
-                    p.setValues(position.getRow(), position.getColumn() + 1);
-                    if (getBoard().positionExists(p) && isThereAnEnemy(p) &&
-                            getBoard().piece(p) == chessMatch.getVulnerablePawn()) {
-                        matrix[p.getRow() - 1][p.getColumn()] = true;
-                    }
-                }
-
                 break;
 
-            case BLACK:
+            default:
                 // movement
-                p.setValues(position.getRow() + 1, position.getColumn());
-                if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
-                }
-                if (getMoveCount() == 0) {
-                    p.setValues(position.getRow() + 2, position.getColumn());
-                    if (matrix[p.getRow() - 1][p.getColumn()] && !getBoard().thereIsAPiece(p)) {
-                        matrix[p.getRow()][p.getColumn()] = true;
-                    }
+                moves = (Bitboard.bit(square) << 8) & empty;
+                if (Bitboard.row(square) == 1) {
+                    moves |= (moves << 8) & empty;
                 }
+                break;
+        }
 
-                // capture
-                p.setValues(position.getRow() + 1, position.getColumn() - 1);
-                if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
-                }
-                p.setValues(position.getRow() + 1, position.getColumn() + 1);
-                if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-                    matrix[p.getRow()][p.getColumn()] = true;
+        // capture
+        long attacks = Attacks.pawn(getColor(), square);
+        moves |= attacks & board.occupancy(opponent());
+
+        // en passant
+        ChessPiece vulnerablePawn = chessMatch.getVulnerablePawn();
+        if (vulnerablePawn != null && vulnerablePawn.getColor() != getColor()) {
+            long targets = attacks & empty;
+            while (targets != 0) {
+                int target = Bitboard.first(targets);
+                if (board.piece(target + (getColor() == Color.WHITE ? 8 : -8)) == vulnerablePawn) {
+                    moves |= Bitboard.bit(target);
                 }
+                targets &= targets - 1;
+            }
+        }
 
-                // en passant
-                if (position.getRow() == 4) {
-                    p.setValues(position.getRow(), position.getColumn() - 1);
-                    if (getBoard().positionExists(p) && isThereAnEnemy(p) &&
-                            getBoard().piece(p) == chessMatch.getVulnerablePawn()) {
-                        matrix[p.getRow() + 1][p.getColumn()] = true;
-                    }
-                    p.setValues(position.getRow(), position.getColumn() + 1);
-                    if (getBoard().positionExists(p) && isThereAnEnemy(p) &&
-                            getBoard().piece(p) == chessMatch.getVulnerablePawn()) {
-                        matrix[p.getRow() + 1][p.getColumn()] = true;
-                    }
-                }
+        return moves;
+    }
 
-                break;
+    @Override
+    public int generateMoves(int[] moves, int count) {
+        int from = getSquare();
+        long enemies = getBoard().occupancy(opponent());
+        long targets = moves();
+        while (targets != 0) {
+            int to = Bitboard.first(targets);
+
+            int flags = 0;
+            if (Bitboard.contains(enemies, to)) {
+                flags = Move.CAPTURE;
+            }
+            else if (Bitboard.column(to) != Bitboard.column(from)) {
+                flags = Move.CAPTURE | Move.EN_PASSANT;
+            }
+            else if (Math.abs(to - from) == 16) {
+                flags = Move.DOUBLE_PUSH;
+            }
+
+            // promotion
+            if (Bitboard.row(to) == 0 || Bitboard.row(to) == 7) {
+                moves[count++] = Move.of(from, to, flags, PieceType.QUEEN);
+                moves[count++] = Move.of(from, to, flags, PieceType.ROOK);
+                moves[count++] = Move.of(from, to, flags, PieceType.BISHOP);
+                moves[count++] = Move.of(from, to, flags, PieceType.KNIGHT);
+            }
+            else {
+                moves[count++] = Move.of(from, to, flags);
+            }
+            targets &= targets - 1;
         }
-        return matrix;
+        return count;
     }
 }
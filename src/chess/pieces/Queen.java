@@ -1,13 +1,14 @@
 package chess.pieces;
 
-import boardgame.Board;
-import boardgame.Position;
+import chess.ChessBoard;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.util.Attacks;
 
 public class Queen extends ChessPiece {
 
-    public Queen(Board board, Color color) {
+    public Queen(ChessBoard board, Color color) {
         super(board, color);
     }
 
@@ -18,91 +19,12 @@ public class Queen extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        // up
-        p.setValues(position.getRow() - 1, position.getColumn());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // upleft
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() - 1, p.getColumn() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // left
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // downleft
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() + 1, p.getColumn() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // down
-        p.setValues(position.getRow() + 1, position.getColumn());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() + 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // downright
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() + 1, p.getColumn() + 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // right
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() + 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
-
-        // upright
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() - 1, p.getColumn() + 1);
-        }
-        if (getBoard().positionExists(p) && isThereAnEnemy(p)) {
-            matrix[p.getRow()][p.getColumn()] = true;
-        }
+    public PieceType getType() {
+        return PieceType.QUEEN;
+    }
 
-        return matrix;
+    @Override
+    public long moves() {
+        return Attacks.queen(getSquare(), getBoard().occupancy()) & emptyOrEnemy();
     }
 }
@@ -0,0 +1,113 @@
+package chess.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+// Hosts matches for many clients at once over TCP, speaking the frames described in Protocol.
+// An acceptor thread hands connections round-robin to a fixed set of selector workers; a
+// connection and all of its matches then stay with one worker for their whole life.
+public class ChessServer implements Closeable {
+
+    private static final int BACKLOG = 1024;
+
+    private final ServerSocketChannel server;
+    private final Worker[] workers;
+    private final Thread[] threads;
+    private final Thread acceptor;
+
+
+    public ChessServer(InetSocketAddress address, int workerCount) throws IOException {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("A server needs at least one worker: " + workerCount);
+        }
+        server = ServerSocketChannel.open();
+        server.bind(address, BACKLOG);
+        workers = new Worker[workerCount];
+        threads = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker();
+            threads[i] = new Thread(workers[i], "chess-server-" + i);
+        }
+        acceptor = new Thread(this::accept, "chess-server-acceptor");
+    }
+
+
+    public void start() {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    public int getWorkers() { return workers.length; }
+
+    public long getMovesPlayed() {
+        long moves = 0;
+        for (Worker worker : workers) {
+            moves += worker.getMovesPlayed();
+        }
+        return moves;
+    }
+
+    public int getMatches() {
+        int matches = 0;
+        for (Worker worker : workers) {
+            matches += worker.getMatches();
+        }
+        return matches;
+    }
+
+    public int getConnections() {
+        int connections = 0;
+        for (Worker worker : workers) {
+            connections += worker.getConnections();
+        }
+        return connections;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Worker worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            acceptor.join();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        int next = 0;
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                workers[next].add(channel);
+                next = (next + 1) % workers.length;
+            }
+            catch (ClosedChannelException e) {
+                return;
+            }
+            catch (IOException e) {
+                // a failed connection must not stop the server from accepting the next one
+                System.err.println("Accept failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package chess.server;
+
+import java.nio.ByteBuffer;
+
+// The binary protocol spoken over a connection. Requests and responses are fixed 8 byte frames:
+//
+//   op (u8) | status (u8) | move (u16, see CompactMove) | match (i32)
+//
+// Match ids are chosen by the client and belong to the connection, so two connections can both
+// play a match 0. Responses come back in request order. The status byte is 0 in requests.
+public class Protocol {
+
+    public static final int FRAME_SIZE = 8;
+    public static final int MAX_MATCHES = 1 << 16;
+
+    // starts a match from the initial position, or restarts it if the id is in use
+    public static final int NEW_MATCH = 1;
+    // plays a move in a match; the response echoes the move
+    public static final int MOVE = 2;
+    public static final int CLOSE_MATCH = 3;
+
+    public static final int OK = 0;
+    public static final int CHECK = 1;
+    public static final int CHECKMATE = 2;
+    public static final int STALEMATE = 3;
+    // fifty moves without a capture or a pawn move
+    public static final int DRAW = 4;
+    public static final int ILLEGAL_MOVE = 5;
+    public static final int UNKNOWN_MATCH = 6;
+    public static final int BAD_REQUEST = 7;
+    // a move sent to a match that is already over
+    public static final int MATCH_OVER = 8;
+
+    private static final String[] STATUSES = {"ok", "check", "checkmate", "stalemate", "draw", "illegal move",
+            "unknown match", "bad request", "match over"};
+
+
+    public static void putFrame(ByteBuffer buffer, int op, int status, short move, int match) {
+        buffer.put((byte) op);
+        buffer.put((byte) status);
+        buffer.putShort(move);
+        buffer.putInt(match);
+    }
+
+    // reads the frame at the given buffer index
+    public static int op(ByteBuffer buffer, int index) { return buffer.get(index) & 0xFF; }
+    public static int status(ByteBuffer buffer, int index) { return buffer.get(index + 1) & 0xFF; }
+    public static short move(ByteBuffer buffer, int index) { return buffer.getShort(index + 2); }
+    public static int match(ByteBuffer buffer, int index) { return buffer.getInt(index + 4); }
+
+    // true once the match is over and only NEW_MATCH or CLOSE_MATCH make sense; moves get MATCH_OVER
+    public static boolean isFinal(int status) {
+        return status == CHECKMATE || status == STALEMATE || status == DRAW;
+    }
+
+    public static String toString(int status) {
+        return (status >= 0 && status < STATUSES.length) ? STATUSES[status] : "status " + status;
+    }
+}
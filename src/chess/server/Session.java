@@ -0,0 +1,54 @@
+package chess.server;
+
+import chess.ChessMatch;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+// One client connection: its buffers and the matches it has opened, indexed by match id.
+// A session is only touched by the worker thread that owns its connection.
+class Session {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ChessMatch[] matches = new ChessMatch[16];
+    private int matchCount;
+
+
+    Session(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+
+    SocketChannel getChannel() { return channel; }
+    ByteBuffer getIn() { return in; }
+    ByteBuffer getOut() { return out; }
+    int getMatchCount() { return matchCount; }
+
+    ChessMatch get(int id) {
+        return (id >= 0 && id < matches.length) ? matches[id] : null;
+    }
+
+    void put(int id, ChessMatch match) {
+        if (id >= matches.length) {
+            matches = Arrays.copyOf(matches, Math.min(Math.max(matches.length * 2, id + 1), Protocol.MAX_MATCHES));
+        }
+        if (matches[id] == null) {
+            matchCount++;
+        }
+        matches[id] = match;
+    }
+
+    ChessMatch remove(int id) {
+        ChessMatch match = get(id);
+        if (match != null) {
+            matches[id] = null;
+            matchCount--;
+        }
+        return match;
+    }
+}
@@ -0,0 +1,242 @@
+package chess.server;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Fen;
+import chess.Move;
+import chess.store.CompactMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// A selector thread serving a share of the connections. Every match lives in the session that
+// opened it, so it is read and written by this thread only and requests are handled without locks.
+// Accepted channels are the only thing handed over from another thread, through a queue.
+class Worker implements Runnable {
+
+    private static final ChessSnapshot INITIAL_POSITION = Fen.parse(Fen.INITIAL_POSITION);
+    private static final int FIFTY_MOVES = 100;
+
+    private final Selector selector;
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+    // closed matches are reloaded instead of allocated again
+    private final ArrayDeque<ChessMatch> pool = new ArrayDeque<>();
+    private final int[] moves = new int[Move.MAX_MOVES];
+    private volatile boolean running = true;
+
+    // written by the worker thread only
+    private volatile long movesPlayed;
+    private volatile int matches;
+    private volatile int connections;
+
+
+    Worker() throws IOException {
+        selector = Selector.open();
+    }
+
+
+    long getMovesPlayed() { return movesPlayed; }
+    int getMatches() { return matches; }
+    int getConnections() { return connections; }
+
+    void add(SocketChannel channel) {
+        pending.add(channel);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                register();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Session session = (Session) key.attachment();
+                    try {
+                        if (key.isReadable() && session.getChannel().read(session.getIn()) < 0) {
+                            close(key);
+                            continue;
+                        }
+                        serve(key, session);
+                    }
+                    catch (IOException e) {
+                        close(key);
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Worker stopped: " + e);
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                closeQuietly(channel);
+            }
+            try {
+                selector.close();
+            }
+            catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private void register() {
+        SocketChannel channel;
+        while ((channel = pending.poll()) != null) {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, new Session(channel));
+                connections++;
+            }
+            catch (IOException e) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    // answers every buffered request the output buffer has room for and writes the answers;
+    // a client that does not read its answers stops being read until it does
+    private void serve(SelectionKey key, Session session) throws IOException {
+        ByteBuffer in = session.getIn();
+        ByteBuffer out = session.getOut();
+        boolean flushed;
+        do {
+            in.flip();
+            while (in.remaining() >= Protocol.FRAME_SIZE && out.remaining() >= Protocol.FRAME_SIZE) {
+                handle(session, in, in.position());
+                in.position(in.position() + Protocol.FRAME_SIZE);
+            }
+            in.compact();
+
+            out.flip();
+            session.getChannel().write(out);
+            flushed = !out.hasRemaining();
+            out.compact();
+        } while (flushed && in.position() >= Protocol.FRAME_SIZE);
+
+        key.interestOps((flushed ? 0 : SelectionKey.OP_WRITE) | (in.hasRemaining() ? SelectionKey.OP_READ : 0));
+    }
+
+    private void handle(Session session, ByteBuffer in, int index) {
+        int op = Protocol.op(in, index);
+        short move = Protocol.move(in, index);
+        int id = Protocol.match(in, index);
+        int status;
+        switch (op) {
+            case Protocol.NEW_MATCH:
+                status = newMatch(session, id);
+                break;
+
+            case Protocol.MOVE:
+                status = play(session.get(id), move);
+                break;
+
+            case Protocol.CLOSE_MATCH:
+                status = closeMatch(session, id);
+                break;
+
+            default:
+                status = Protocol.BAD_REQUEST;
+        }
+        Protocol.putFrame(session.getOut(), op, status, move, id);
+    }
+
+    private int newMatch(Session session, int id) {
+        if (id < 0 || id >= Protocol.MAX_MATCHES) {
+            return Protocol.BAD_REQUEST;
+        }
+        ChessMatch match = session.get(id);
+        if (match != null) {
+            match.load(INITIAL_POSITION);
+            return Protocol.OK;
+        }
+        match = pool.poll();
+        if (match == null) {
+            match = new ChessMatch(INITIAL_POSITION);
+        }
+        else {
+            match.load(INITIAL_POSITION);
+        }
+        session.put(id, match);
+        matches++;
+        return Protocol.OK;
+    }
+
+    private int play(ChessMatch match, short move) {
+        if (match == null) {
+            return Protocol.UNKNOWN_MATCH;
+        }
+        // a match that ended in a draw still has legal moves, so the clock is checked as well
+        int count = match.generateMoves(moves);
+        if (count == 0 || match.getHalfmoveClock() >= FIFTY_MOVES) {
+            return Protocol.MATCH_OVER;
+        }
+        for (int i = 0; i < count; i++) {
+            if (CompactMove.encode(moves[i]) == move) {
+                match.makeMove(moves[i]);
+                movesPlayed++;
+                return status(match);
+            }
+        }
+        return Protocol.ILLEGAL_MOVE;
+    }
+
+    private int status(ChessMatch match) {
+        if (match.generateMoves(moves) == 0) {
+            return match.isCheck() ? Protocol.CHECKMATE : Protocol.STALEMATE;
+        }
+        if (match.getHalfmoveClock() >= FIFTY_MOVES) {
+            return Protocol.DRAW;
+        }
+        return match.isCheck() ? Protocol.CHECK : Protocol.OK;
+    }
+
+    private int closeMatch(Session session, int id) {
+        ChessMatch match = session.remove(id);
+        if (match == null) {
+            return Protocol.UNKNOWN_MATCH;
+        }
+        pool.push(match);
+        matches--;
+        return Protocol.OK;
+    }
+
+    private void close(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        key.cancel();
+        Session session = (Session) key.attachment();
+        matches -= session.getMatchCount();
+        connections--;
+        closeQuietly(session.getChannel());
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            // the connection is gone either way
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package chess.store;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.util.Bitboard;
+
+// 16-bit move encoding: from (6 bits) | to (6) | promotion piece (2) | special (2).
+// Captures and double pushes are not stored; decode() reads them back off the board.
+public class CompactMove {
+
+    public static final int NORMAL = 0;
+    public static final int PROMOTION = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLING = 3;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+
+    public static short encode(int move) {
+        int special = Move.isPromotion(move) ? PROMOTION
+                : Move.isEnPassant(move) ? EN_PASSANT
+                : Move.isCastling(move) ? CASTLING : NORMAL;
+        int promotion = Move.isPromotion(move) ? Move.promotion(move).ordinal() - 1 : 0;
+        return (short) (Move.from(move) | Move.to(move) << 6 | promotion << 12 | special << 14);
+    }
+
+    public static int from(short move) { return move & 63; }
+    public static int to(short move) { return (move >>> 6) & 63; }
+    public static int special(short move) { return (move >>> 14) & 3; }
+
+    // the full move in the match's current position, which must be the one it was encoded in
+    public static int decode(short move, ChessMatch match) {
+        int from = from(move);
+        int to = to(move);
+        switch (special(move)) {
+            case PROMOTION:
+                int flags = (match.piece(to) != null) ? Move.CAPTURE : 0;
+                return Move.of(from, to, flags, PROMOTIONS[(move >>> 12) & 3]);
+
+            case EN_PASSANT:
+                return Move.of(from, to, Move.EN_PASSANT | Move.CAPTURE);
+
+            case CASTLING:
+                return Move.of(from, to, Move.CASTLING);
+
+            default:
+                ChessPiece piece = match.piece(from);
+                int normalFlags = (match.piece(to) != null) ? Move.CAPTURE : 0;
+                if (piece != null && piece.getType() == PieceType.PAWN && Math.abs(Bitboard.row(to) - Bitboard.row(from)) == 2) {
+                    normalFlags |= Move.DOUBLE_PUSH;
+                }
+                return Move.of(from, to, normalFlags);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package chess.store;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Fen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Read side of the binary game store. The data file holds one record per game:
+//
+//   plies (u16) | result (u8) | flags (u8) | [start FEN, newline terminated] | plies x move (u16)
+//
+// and the index file holds the offset of every record as a long, so game ids are index positions.
+// Both files are memory-mapped; replaying reads the moves straight out of the mapping.
+public class GameStore implements Closeable {
+
+    public static final int RESULT_UNKNOWN = 0;
+    public static final int RESULT_WHITE_WINS = 1;
+    public static final int RESULT_BLACK_WINS = 2;
+    public static final int RESULT_DRAW = 3;
+
+    static final int HEADER_SIZE = 4;
+    static final int FLAG_START_POSITION = 1;
+    static final int MAX_PLIES = 0xFFFF;
+
+    // data is mapped in segments that overlap by more than the largest record
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final long SEGMENT_OVERLAP = 1L << 18;
+
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer offsets;
+    private final long size;
+
+
+    public GameStore(Path path) throws IOException {
+        data = FileChannel.open(path, StandardOpenOption.READ);
+        index = FileChannel.open(indexPath(path), StandardOpenOption.READ);
+
+        long dataSize = data.size();
+        int count = (int) ((dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * SEGMENT_SIZE;
+            segments[i] = data.map(FileChannel.MapMode.READ_ONLY, start, Math.min(dataSize - start, SEGMENT_SIZE + SEGMENT_OVERLAP));
+        }
+
+        // the index is one mapping, so its byte offsets must fit an int;
+        // entries whose record did not make it to the data file are ignored
+        long entries = index.size() / Long.BYTES;
+        if (entries > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IOException("Index holds more games than can be mapped: " + entries);
+        }
+        offsets = index.map(FileChannel.MapMode.READ_ONLY, 0, entries * Long.BYTES);
+        while (entries > 0 && offsets.getLong((int) ((entries - 1) * Long.BYTES)) + HEADER_SIZE > dataSize) {
+            entries--;
+        }
+        size = entries;
+    }
+
+
+    public static Path indexPath(Path path) {
+        return Paths.get(path.toString() + ".idx");
+    }
+
+    public static int result(String result) {
+        switch (result) {
+            case "1-0":
+                return RESULT_WHITE_WINS;
+
+            case "0-1":
+                return RESULT_BLACK_WINS;
+
+            case "1/2-1/2":
+                return RESULT_DRAW;
+
+            default:
+                return RESULT_UNKNOWN;
+        }
+    }
+
+    public long size() { return size; }
+
+    public int getPlies(long id) {
+        return record(id).getShort(local(id)) & 0xFFFF;
+    }
+
+    public int getResult(long id) {
+        return record(id).get(local(id) + 2) & 3;
+    }
+
+    public String getResultText(long id) {
+        return RESULTS[getResult(id)];
+    }
+
+    public ChessSnapshot getStartPosition(long id) {
+        ByteBuffer record = record(id);
+        int position = local(id);
+        if ((record.get(position + 3) & FLAG_START_POSITION) == 0) {
+            return Fen.parse(Fen.INITIAL_POSITION);
+        }
+        ByteBuffer fen = record.duplicate();
+        fen.position(position + HEADER_SIZE);
+        return Fen.parse(fen);
+    }
+
+    // the compact move of the given ply
+    public short getMove(long id, int ply) {
+        return record(id).getShort(movesStart(id) + 2 * ply);
+    }
+
+    // loads the start position into the match and plays every move, leaving the match's status
+    // (checkmate, stalemate) as it is at the end of the game
+    public void replay(long id, ChessMatch match) {
+        match.load(getStartPosition(id));
+        ByteBuffer record = record(id);
+        int position = movesStart(id);
+        int plies = getPlies(id);
+        for (int i = 0; i < plies; i++) {
+            match.makeMove(CompactMove.decode(record.getShort(position + 2 * i), match));
+        }
+        match.updateStatus();
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+        index.close();
+    }
+
+    private long offset(long id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No game with id " + id + " in a store of " + size + " games.");
+        }
+        return offsets.getLong((int) (id * Long.BYTES));
+    }
+
+    private ByteBuffer record(long id) {
+        return segments[(int) (offset(id) / SEGMENT_SIZE)];
+    }
+
+    private int local(long id) {
+        return (int) (offset(id) % SEGMENT_SIZE);
+    }
+
+    private int movesStart(long id) {
+        ByteBuffer record = record(id);
+        int position = local(id);
+        int start = position + HEADER_SIZE;
+        if ((record.get(position + 3) & FLAG_START_POSITION) != 0) {
+            while (record.get(start) != '\n') {
+                start++;
+            }
+            start++;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,131 @@
+package chess.store;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Fen;
+import chess.pgn.PgnGame;
+import chess.pgn.San;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Append-only writer for a GameStore. Records are buffered and written before their index
+// entries, so a reader never sees an index entry for a record that is not in the data file.
+public class GameStoreWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder fen = new StringBuilder(100);
+    private final ChessSnapshot initialPosition = Fen.parse(Fen.INITIAL_POSITION);
+    private int[] moveBuffer = new int[256];
+    private long dataSize;
+    private long size;
+
+
+    public GameStoreWriter(Path path) throws IOException {
+        data = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        index = FileChannel.open(GameStore.indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        dataSize = data.size();
+        size = index.size() / Long.BYTES;
+    }
+
+
+    public long size() { return size; }
+
+    // appends a game and returns its id; a null start means the initial position
+    public long append(ChessSnapshot start, int[] moves, int plies, int result) throws IOException {
+        if (plies > GameStore.MAX_PLIES) {
+            throw new IllegalArgumentException("A game can hold at most " + GameStore.MAX_PLIES + " plies.");
+        }
+
+        fen.setLength(0);
+        if (start != null) {
+            Fen.append(start, fen).append('\n');
+        }
+        int length = GameStore.HEADER_SIZE + fen.length() + 2 * plies;
+        if (dataBuffer.remaining() < length) {
+            flushData();
+        }
+        ByteBuffer target = (length <= dataBuffer.capacity()) ? dataBuffer : ByteBuffer.allocate(length);
+
+        target.putShort((short) plies);
+        target.put((byte) result);
+        target.put((byte) ((start != null) ? GameStore.FLAG_START_POSITION : 0));
+        for (int i = 0; i < fen.length(); i++) {
+            target.put((byte) fen.charAt(i));
+        }
+        for (int i = 0; i < plies; i++) {
+            target.putShort(CompactMove.encode(moves[i]));
+        }
+        if (target != dataBuffer) {
+            target.flip();
+            while (target.hasRemaining()) {
+                data.write(target);
+            }
+        }
+
+        if (!indexBuffer.hasRemaining()) {
+            flush();
+        }
+        indexBuffer.putLong(dataSize);
+        dataSize += length;
+        return size++;
+    }
+
+    // decodes the SAN moves of a PGN game in the match and appends the game;
+    // returns its id, or -1 when a move is illegal and nothing was written
+    public long append(PgnGame game, San san, ChessMatch match) throws IOException {
+        ChessSnapshot start = game.getStartPosition();
+        match.load(start);
+        int plies = game.getMoveCount();
+        if (moveBuffer.length < plies) {
+            moveBuffer = Arrays.copyOf(moveBuffer, Math.max(plies, moveBuffer.length * 2));
+        }
+        try {
+            for (int i = 0; i < plies; i++) {
+                moveBuffer[i] = san.decode(match, game.getMovetext(), game.getMoveStart(i), game.getMoveEnd(i));
+                match.makeMove(moveBuffer[i]);
+            }
+        }
+        catch (ChessException e) {
+            return -1;
+        }
+        return append(start.equals(initialPosition) ? null : start, moveBuffer, plies, GameStore.result(game.getResult()));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushData();
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            index.write(indexBuffer);
+        }
+        indexBuffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        data.close();
+        index.close();
+    }
+
+    private void flushData() throws IOException {
+        dataBuffer.flip();
+        while (dataBuffer.hasRemaining()) {
+            data.write(dataBuffer);
+        }
+        dataBuffer.clear();
+    }
+}
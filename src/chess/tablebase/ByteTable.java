@@ -0,0 +1,34 @@
+package chess.tablebase;
+
+import java.nio.ByteBuffer;
+
+// One byte per position, off the heap. Tables with five men are larger than a single buffer
+// can address, so the bytes are split into fixed-size direct segments.
+final class ByteTable {
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+
+    ByteTable(long size) {
+        this.size = size;
+        segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect((int) Math.min(size - ((long) i << SEGMENT_BITS), 1L << SEGMENT_BITS));
+        }
+    }
+
+
+    long size() { return size; }
+
+    int get(long index) {
+        return segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & SEGMENT_MASK)) & 0xFF;
+    }
+
+    void set(long index, int value) {
+        segments[(int) (index >>> SEGMENT_BITS)].put((int) (index & SEGMENT_MASK), (byte) value);
+    }
+}
@@ -0,0 +1,253 @@
+package chess.tablebase;
+
+import chess.Color;
+import chess.PieceType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A material signature such as KRK or KBNK: the stronger side's pieces, then the weaker side's,
+// each starting with the king. Tables are built with the stronger side as white; positions where
+// black is the stronger side are probed with the colors swapped and the board mirrored.
+//
+// Positions are indexed by the side to move, the white king's square reduced by the board's
+// symmetries (all eight without pawns, left-right only with pawns) and the squares of the rest.
+final class Material {
+
+    static final int MAX_MEN = 5;
+
+    private static final String LETTERS = "PNBRQK";
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // TRANSFORMS[t] mirrors columns (t & 1), rows (t & 2), then the diagonal (t & 4)
+    private static final int[][] TRANSFORMS = new int[8][64];
+    private static final int[] PAWNLESS_TRANSFORM = new int[64];
+    private static final int[] PAWNLESS_SLOTS = new int[64];
+    private static final int[] PAWNLESS_SQUARES = new int[10];
+    private static final int[] PAWN_TRANSFORM = new int[64];
+    private static final int[] PAWN_SLOTS = new int[64];
+    private static final int[] PAWN_SQUARES = new int[32];
+
+    static {
+        for (int t = 0; t < 8; t++) {
+            for (int square = 0; square < 64; square++) {
+                int row = square >>> 3;
+                int column = square & 7;
+                if ((t & 1) != 0) {
+                    column = 7 - column;
+                }
+                if ((t & 2) != 0) {
+                    row = 7 - row;
+                }
+                TRANSFORMS[t][square] = ((t & 4) != 0) ? column * 8 + row : row * 8 + column;
+            }
+        }
+
+        // the canonical white king squares are the triangle row <= 3, column <= row without pawns,
+        // and the four left columns with pawns
+        Arrays.fill(PAWNLESS_SLOTS, -1);
+        Arrays.fill(PAWN_SLOTS, -1);
+        int slots = 0;
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column <= row; column++) {
+                PAWNLESS_SLOTS[row * 8 + column] = slots;
+                PAWNLESS_SQUARES[slots++] = row * 8 + column;
+            }
+        }
+        slots = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 4; column++) {
+                PAWN_SLOTS[row * 8 + column] = slots;
+                PAWN_SQUARES[slots++] = row * 8 + column;
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            int t = (((square & 7) > 3) ? 1 : 0) | (((square >>> 3) > 3) ? 2 : 0);
+            int mirrored = TRANSFORMS[t][square];
+            if ((mirrored & 7) > (mirrored >>> 3)) {
+                t |= 4;
+            }
+            PAWNLESS_TRANSFORM[square] = t;
+            PAWN_TRANSFORM[square] = ((square & 7) > 3) ? 1 : 0;
+        }
+    }
+
+    private final String name;
+    private final PieceType[] types;
+    private final Color[] colors;
+    private final boolean pawns;
+    private final int kingSlots;
+    private final long size;
+    private final int key;
+    private final int mirroredKey;
+    private final int[] slots;
+    private final int[] mirroredSlots;
+
+
+    private Material(String strong, String weak) {
+        name = "K" + strong + "K" + weak;
+        int men = name.length();
+        types = new PieceType[men];
+        colors = new Color[men];
+        types[0] = types[1] = PieceType.KING;
+        colors[0] = Color.WHITE;
+        colors[1] = Color.BLACK;
+        int key = 0;
+        int mirroredKey = 0;
+        for (int i = 2; i < men; i++) {
+            boolean white = i - 2 < strong.length();
+            char letter = white ? strong.charAt(i - 2) : weak.charAt(i - 2 - strong.length());
+            types[i] = TYPES[LETTERS.indexOf(letter)];
+            colors[i] = white ? Color.WHITE : Color.BLACK;
+            key += 1 << keyShift(colors[i], types[i]);
+            mirroredKey += 1 << keyShift(white ? Color.BLACK : Color.WHITE, types[i]);
+        }
+        this.key = key;
+        this.mirroredKey = mirroredKey;
+        slots = new int[men];
+        mirroredSlots = new int[men];
+        for (int i = 0; i < men; i++) {
+            Color mirrored = (colors[i] == Color.WHITE) ? Color.BLACK : Color.WHITE;
+            slots[i] = colors[i].ordinal() * 6 + types[i].ordinal();
+            mirroredSlots[i] = mirrored.ordinal() * 6 + types[i].ordinal();
+        }
+        pawns = strong.indexOf('P') >= 0 || weak.indexOf('P') >= 0;
+        kingSlots = pawns ? PAWN_SQUARES.length : PAWNLESS_SQUARES.length;
+        size = 2L * kingSlots << (6 * (men - 1));
+    }
+
+
+    static Material parse(String signature) {
+        String s = signature.trim().toUpperCase();
+        int split = s.indexOf('K', 1);
+        if (!s.startsWith("K") || split < 0 || s.indexOf('K', split + 1) >= 0 || s.length() > MAX_MEN) {
+            throw new IllegalArgumentException("Invalid material signature: " + signature);
+        }
+        String first = sort(s.substring(1, split), signature);
+        String second = sort(s.substring(split + 1), signature);
+        int difference = value(first) - value(second);
+        if (difference < 0 || (difference == 0 && first.compareTo(second) < 0)) {
+            return new Material(second, first);
+        }
+        return new Material(first, second);
+    }
+
+    // material key of a position from its piece counts, two bits per color and type
+    static int keyShift(Color color, PieceType type) {
+        return 2 * type.ordinal() + ((color == Color.WHITE) ? 0 : 10);
+    }
+
+    String getName() { return name; }
+    int getMen() { return types.length; }
+    PieceType getType(int piece) { return types[piece]; }
+    Color getColor(int piece) { return colors[piece]; }
+    boolean hasPawns() { return pawns; }
+    long size() { return size; }
+    int getKey() { return key; }
+    int getMirroredKey() { return mirroredKey; }
+
+    // where each piece's bitboard is in an array indexed color * 6 + type, for a position
+    // with the stronger side as white, or as black when mirrored
+    int[] getSlots(boolean mirrored) {
+        return mirrored ? mirroredSlots : slots;
+    }
+
+    // squares are in signature order, kings first; side is 0 when white is to move
+    long index(int[] squares, int side) {
+        return index(squares, side, pawns ? PAWN_TRANSFORM[squares[0]] : PAWNLESS_TRANSFORM[squares[0]]);
+    }
+
+    // a white king on the diagonal leaves the position and its mirror image along the diagonal
+    // with two indexes that hold the same result; this is the other one, or -1
+    long diagonalIndex(int[] squares, int side) {
+        int transform = PAWNLESS_TRANSFORM[squares[0]];
+        int king = TRANSFORMS[transform][squares[0]];
+        if (pawns || (king & 7) != (king >>> 3)) {
+            return -1;
+        }
+        return index(squares, side, transform | 4);
+    }
+
+    private long index(int[] squares, int side, int transform) {
+        int[] map = TRANSFORMS[transform];
+        int[] slots = pawns ? PAWN_SLOTS : PAWNLESS_SLOTS;
+        long index = (long) side * kingSlots + slots[map[squares[0]]];
+        for (int i = 1; i < types.length; i++) {
+            index = (index << 6) | map[squares[i]];
+        }
+        return index;
+    }
+
+    // the inverse of index: fills the squares and returns the side to move
+    int decode(long index, int[] squares) {
+        for (int i = types.length - 1; i > 0; i--) {
+            squares[i] = (int) (index & 63);
+            index >>>= 6;
+        }
+        squares[0] = (pawns ? PAWN_SQUARES : PAWNLESS_SQUARES)[(int) (index % kingSlots)];
+        return (int) (index / kingSlots);
+    }
+
+    // the signatures a capture or a promotion leads to
+    List<Material> successors() {
+        List<Material> successors = new ArrayList<>();
+        int split = name.indexOf('K', 1);
+        for (int i = 1; i < name.length(); i++) {
+            char letter = name.charAt(i);
+            if (i == split) {
+                continue;
+            }
+            add(successors, name.substring(0, i) + name.substring(i + 1));
+            if (letter == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    add(successors, name.substring(0, i) + promotion + name.substring(i + 1));
+                }
+            }
+        }
+        return successors;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static void add(List<Material> successors, String signature) {
+        Material material = parse(signature);
+        for (Material m : successors) {
+            if (m.name.equals(material.name)) {
+                return;
+            }
+        }
+        successors.add(material);
+    }
+
+    // pieces of one side from the most to the least valuable
+    private static String sort(String pieces, String signature) {
+        char[] letters = pieces.toCharArray();
+        for (char letter : letters) {
+            if (LETTERS.indexOf(letter) < 0 || letter == 'K') {
+                throw new IllegalArgumentException("Invalid material signature: " + signature);
+            }
+        }
+        StringBuilder sb = new StringBuilder(letters.length);
+        for (int type = TYPES.length - 2; type >= 0; type--) {
+            for (char letter : letters) {
+                if (letter == LETTERS.charAt(type)) {
+                    sb.append(letter);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int value(String pieces) {
+        int value = 0;
+        for (int i = 0; i < pieces.length(); i++) {
+            value += TYPES[LETTERS.indexOf(pieces.charAt(i))].getValue();
+        }
+        return value;
+    }
+}
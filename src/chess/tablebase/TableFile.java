@@ -0,0 +1,71 @@
+package chess.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One generated table, memory-mapped. After a 16-byte header (magic, bits per entry, entry count)
+// the entries are packed little-endian at the fewest bits that hold the largest one, followed by
+// eight bytes of padding so that every entry can be read with a single unaligned long.
+//
+// An entry is 0 for a draw, 1 for an illegal position, or the distance to mate in plies plus 2:
+// odd distances are wins for the side to move and even ones are losses.
+final class TableFile implements Closeable {
+
+    static final int MAGIC = 0x43544231;
+    static final int HEADER_SIZE = 16;
+    static final int PADDING = 8;
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final Material material;
+    private final FileChannel channel;
+    private final ByteBuffer[] segments;
+    private final int bits;
+    private final long mask;
+
+
+    TableFile(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        material = Material.parse(name.substring(0, name.lastIndexOf('.')));
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        // segments overlap by the padding, so a read never straddles two of them
+        long fileSize = channel.size();
+        segments = new ByteBuffer[(int) Math.max(1, (fileSize - PADDING + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, SEGMENT_MASK + 1 + PADDING))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer header = segments[0];
+        bits = (fileSize >= HEADER_SIZE && header.getInt(0) == MAGIC) ? header.getInt(4) : 0;
+        if (bits < 1 || bits > 8 || header.getLong(8) != material.size()
+                || fileSize < HEADER_SIZE + (material.size() * bits + 7) / 8 + PADDING) {
+            channel.close();
+            throw new IOException("Not a " + material + " table: " + path);
+        }
+        mask = (1L << bits) - 1;
+    }
+
+
+    Material getMaterial() { return material; }
+
+    int get(long index) {
+        long bit = index * bits;
+        long offset = HEADER_SIZE + (bit >>> 3);
+        long word = segments[(int) (offset >>> SEGMENT_BITS)].getLong((int) (offset & SEGMENT_MASK));
+        return (int) ((word >>> (bit & 7)) & mask);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
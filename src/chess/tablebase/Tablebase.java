@@ -0,0 +1,176 @@
+package chess.tablebase;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Color;
+import chess.PieceType;
+import chess.util.Attacks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Exact results for positions with few pieces, read from the tables written by TablebaseGenerator.
+// A probe counts the material to find the table, lays the pieces out in the table's order and
+// reads one packed entry from the mapping; nothing is allocated. Positions with castling rights
+// or a possible en passant capture are not in the tables.
+//
+// Results are UNKNOWN, DRAW or a win or loss for the side to move, see isWin, isLoss and distance.
+public class Tablebase implements Closeable {
+
+    public static final int UNKNOWN = -1;
+    public static final int DRAW = 0;
+
+    static final int ILLEGAL = 1;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Color[] COLORS = Color.values();
+    private static final int WHITE = Color.WHITE.ordinal() * 6;
+    private static final int BLACK = Color.BLACK.ordinal() * 6;
+
+    private final TableFile[] tables = new TableFile[1 << 20];
+    private final boolean[] mirrored = new boolean[1 << 20];
+    private final List<TableFile> files = new ArrayList<>();
+    private final ThreadLocal<Probe> probes = ThreadLocal.withInitial(Probe::new);
+    private int maxMen;
+
+
+    public Tablebase() {
+    }
+
+    // loads every table file in the directory
+    public Tablebase(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.tb")) {
+            for (Path path : stream) {
+                load(path);
+            }
+        }
+    }
+
+
+    public static boolean isWin(int result) { return result > ILLEGAL && (result & 1) != 0; }
+    public static boolean isLoss(int result) { return result > ILLEGAL && (result & 1) == 0; }
+
+    // plies to mate for a win or a loss
+    public static int distance(int result) { return result - 2; }
+
+    static int code(int distance) { return distance + 2; }
+
+    public static String toString(int result) {
+        if (isWin(result)) {
+            return "win in " + (distance(result) + 1) / 2;
+        }
+        if (isLoss(result)) {
+            return (distance(result) == 0) ? "checkmated" : "loss in " + distance(result) / 2;
+        }
+        return (result == DRAW) ? "draw" : "unknown";
+    }
+
+    public int getMaxMen() { return maxMen; }
+
+    public boolean contains(String signature) {
+        return tables[Material.parse(signature).getKey()] != null;
+    }
+
+    public void load(Path path) throws IOException {
+        TableFile table = new TableFile(path);
+        Material material = table.getMaterial();
+        if (tables[material.getKey()] != null) {
+            table.close();
+            return;
+        }
+        files.add(table);
+        tables[material.getKey()] = table;
+        if (material.getMirroredKey() != material.getKey()) {
+            tables[material.getMirroredKey()] = table;
+            mirrored[material.getMirroredKey()] = true;
+        }
+        maxMen = Math.max(maxMen, material.getMen());
+    }
+
+    public int probe(ChessMatch match) {
+        if (match.getCastlingRights() != 0 || Long.bitCount(match.occupancy()) > maxMen) {
+            return UNKNOWN;
+        }
+        Color side = match.getCurrentPlayer();
+        if (canCaptureEnPassant(match.getEnPassantSquare(), side, match.pieces(side, PieceType.PAWN))) {
+            return UNKNOWN;
+        }
+        Probe probe = probes.get();
+        for (Color color : COLORS) {
+            for (PieceType type : TYPES) {
+                probe.pieces[color.ordinal() * 6 + type.ordinal()] = match.pieces(color, type);
+            }
+        }
+        return probe(probe.pieces, side, probe.squares);
+    }
+
+    public int probe(ChessSnapshot snapshot) {
+        if (snapshot.getCastlingRights() != 0 || Long.bitCount(snapshot.occupancy()) > maxMen) {
+            return UNKNOWN;
+        }
+        Color side = snapshot.getSideToMove();
+        if (canCaptureEnPassant(snapshot.getEnPassantSquare(), side, snapshot.pieces(side, PieceType.PAWN))) {
+            return UNKNOWN;
+        }
+        Probe probe = probes.get();
+        for (Color color : COLORS) {
+            for (PieceType type : TYPES) {
+                probe.pieces[color.ordinal() * 6 + type.ordinal()] = snapshot.pieces(color, type);
+            }
+        }
+        return probe(probe.pieces, side, probe.squares);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (TableFile table : files) {
+            table.close();
+        }
+    }
+
+    // pieces holds a bitboard per color and type, indexed color * 6 + type, and is consumed
+    int probe(long[] pieces, Color side, int[] squares) {
+        int key = 0;
+        for (int type = 0; type < 5; type++) {
+            int white = Long.bitCount(pieces[WHITE + type]);
+            int black = Long.bitCount(pieces[BLACK + type]);
+            if ((white | black) > 3) {
+                return UNKNOWN;
+            }
+            key += (white << (2 * type)) + (black << (10 + 2 * type));
+        }
+        TableFile table = tables[key];
+        if (table == null) {
+            return UNKNOWN;
+        }
+
+        // a mirrored table has its stronger side as black: swap the colors and flip the rows
+        boolean mirror = mirrored[key];
+        Material material = table.getMaterial();
+        int[] slots = material.getSlots(mirror);
+        int flip = mirror ? 56 : 0;
+        for (int i = 0; i < slots.length; i++) {
+            long bits = pieces[slots[i]];
+            pieces[slots[i]] = bits & (bits - 1);
+            squares[i] = Long.numberOfTrailingZeros(bits) ^ flip;
+        }
+        int toMove = ((side == Color.WHITE) != mirror) ? 0 : 1;
+        int result = table.get(material.index(squares, toMove));
+        return (result == ILLEGAL) ? UNKNOWN : result;
+    }
+
+    private static boolean canCaptureEnPassant(int square, Color side, long pawns) {
+        Color enemy = (side == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        return square >= 0 && (Attacks.pawn(enemy, square) & pawns) != 0;
+    }
+
+    private static class Probe {
+        final long[] pieces = new long[12];
+        final int[] squares = new int[Material.MAX_MEN];
+    }
+}
@@ -0,0 +1,623 @@
+package chess.tablebase;
+
+import chess.Color;
+import chess.PieceType;
+import chess.util.Attacks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Builds tables by retrograde analysis. Every position of the table is first classified on its own:
+// illegal, mated, stalemated, or, through the smaller tables its captures and promotions lead to,
+// given the ply at which one of those moves decides it. Then, ply by ply, the positions decided at
+// the previous ply mark their predecessors (un-moves within the table) and the marked positions are
+// checked with their forward moves: on odd plies a position wins if a move reaches a lost position,
+// on even plies it loses if every move reaches a won one. Whatever is left undecided is a draw.
+//
+// The tables hold no en passant rights, so a double push that can be taken en passant does not lead
+// to a position of the table: that successor is valued through its own moves, the capture included,
+// each time the position that made the push is checked. Un-moves cannot reach such positions, so they
+// are checked on every ply instead of being marked.
+//
+// Each pass is a fork-join action over ranges of positions. A pass only ever writes one kind of
+// result and only reads the other kind, so the passes need no locking.
+public class TablebaseGenerator {
+
+    private static final int TASK_SIZE = 1 << 14;
+    private static final int MAX_DISTANCE = 253;
+    private static final int MAX_SUCCESSORS = 256;
+    private static final int SAME_TABLE = -2;
+    private static final int EN_PASSANT = -3;
+    private static final int EVERY_PLY = 255;
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private static final int INIT = 0;
+    private static final int MARK = 1;
+    private static final int VERIFY = 2;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private final Tablebase tablebase;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.pool = pool;
+        tablebase = new Tablebase(directory);
+    }
+
+
+    // every table generated so far, and those found in the directory
+    public Tablebase getTablebase() { return tablebase; }
+
+    // generates the table for a signature such as KRK, after the tables its captures and
+    // promotions lead to; tables already in the directory are kept
+    public List<TablebaseReport> generate(String signature) throws IOException {
+        List<TablebaseReport> reports = new ArrayList<>();
+        generate(Material.parse(signature), reports);
+        return reports;
+    }
+
+    private void generate(Material material, List<TablebaseReport> reports) throws IOException {
+        if (tablebase.contains(material.getName())) {
+            return;
+        }
+        for (Material successor : material.successors()) {
+            generate(successor, reports);
+        }
+
+        long start = System.nanoTime();
+        Generation generation = new Generation(material);
+        generation.run();
+        Path path = directory.resolve(material.getName() + ".tb");
+        reports.add(write(generation, path, start));
+        tablebase.load(path);
+    }
+
+    private TablebaseReport write(Generation generation, Path path, long start) throws IOException {
+        ByteTable values = generation.values;
+        long size = values.size();
+        int max = 0;
+        for (long index = 0; index < size; index++) {
+            max = Math.max(max, values.get(index));
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+
+        long positions = 0;
+        long wins = 0;
+        long losses = 0;
+        long bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(TableFile.MAGIC);
+            buffer.putInt(bits);
+            buffer.putLong(size);
+            long word = 0;
+            int used = 0;
+            for (long index = 0; index < size; index++) {
+                int value = values.get(index);
+                if (value != Tablebase.ILLEGAL) {
+                    positions++;
+                    wins += Tablebase.isWin(value) ? 1 : 0;
+                    losses += Tablebase.isLoss(value) ? 1 : 0;
+                }
+                word |= (long) value << used;
+                used += bits;
+                while (used >= 8) {
+                    if (!buffer.hasRemaining()) {
+                        write(channel, buffer);
+                    }
+                    buffer.put((byte) word);
+                    word >>>= 8;
+                    used -= 8;
+                }
+            }
+            if (buffer.remaining() < 1 + TableFile.PADDING) {
+                write(channel, buffer);
+            }
+            if (used > 0) {
+                buffer.put((byte) word);
+            }
+            buffer.putLong(0);
+            write(channel, buffer);
+            bytes = channel.size();
+        }
+        return new TablebaseReport(generation.material.getName(), positions, wins, positions - wins - losses, losses,
+                Math.max(0, Tablebase.distance(max)), bytes, System.nanoTime() - start);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long attacks(PieceType type, Color color, int square, long occupied) {
+        switch (type) {
+            case PAWN:
+                return Attacks.pawn(color, square);
+
+            case KNIGHT:
+                return Attacks.knight(square);
+
+            case BISHOP:
+                return Attacks.bishop(square, occupied);
+
+            case ROOK:
+                return Attacks.rook(square, occupied);
+
+            case QUEEN:
+                return Attacks.queen(square, occupied);
+
+            default:
+                return Attacks.king(square);
+        }
+    }
+
+    private static boolean isPromotionRow(Color color, int square) {
+        return (square >>> 3) == ((color == Color.WHITE) ? 0 : 7);
+    }
+
+    private static Color color(int side) {
+        return (side == 0) ? Color.WHITE : Color.BLACK;
+    }
+
+    // the results of one table while it is being built, one byte per position in the Tablebase
+    // encoding, plus the ply at which each position is next worth checking
+    private class Generation {
+
+        private final Material material;
+        private final ByteTable values;
+        private final ByteTable triggers;
+        private final ByteTable marks;
+        private final LongAdder decided = new LongAdder();
+        private final LongAccumulator lastTrigger = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator enPassantDepth = new LongAccumulator(Math::max, 0);
+        private int ply;
+
+
+        Generation(Material material) {
+            this.material = material;
+            values = new ByteTable(material.size());
+            triggers = new ByteTable(material.size());
+            marks = new ByteTable(material.size());
+        }
+
+
+        void run() {
+            pool.invoke(new PassTask(this, INIT, 0, material.size()));
+            // a position decided now decides the one behind an en passant successor a ply later
+            // than its predecessors, so that many plies may pass with nothing decided
+            int quiet = 0;
+            for (ply = 1; ; ply++) {
+                if (ply > MAX_DISTANCE) {
+                    throw new IllegalStateException("Mates in " + material + " are longer than " + MAX_DISTANCE + " plies.");
+                }
+                decided.reset();
+                pool.invoke(new PassTask(this, MARK, 0, material.size()));
+                pool.invoke(new PassTask(this, VERIFY, 0, material.size()));
+                quiet = (decided.sum() == 0) ? quiet + 1 : 0;
+                if (quiet > enPassantDepth.get() && ply >= lastTrigger.get()) {
+                    break;
+                }
+            }
+        }
+
+        void pass(int pass, long from, long to) {
+            Worker worker = workers.get();
+            for (long index = from; index < to; index++) {
+                switch (pass) {
+                    case INIT:
+                        classify(index, worker);
+                        break;
+
+                    case MARK:
+                        if (values.get(index) == Tablebase.code(ply - 1)) {
+                            markPredecessors(index, worker);
+                        }
+                        break;
+
+                    default:
+                        if (values.get(index) == Tablebase.DRAW && (marks.get(index) == ply || marks.get(index) == EVERY_PLY
+                                || triggers.get(index) == ply)) {
+                            verify(index, worker);
+                        }
+                        break;
+                }
+            }
+        }
+
+        private void classify(long index, Worker worker) {
+            int side = material.decode(index, worker.squares);
+            if (!isLegal(worker.squares, side)) {
+                values.set(index, Tablebase.ILLEGAL);
+                return;
+            }
+            int count = successors(worker, side);
+            if (count == 0) {
+                if (isAttacked(worker.squares, side, -1, occupancy(worker.squares))) {
+                    values.set(index, Tablebase.code(0));
+                }
+                return;
+            }
+
+            int win = Integer.MAX_VALUE;
+            int loss = 0;
+            boolean leavesTable = false;
+            boolean escapes = false;
+            for (int i = 0; i < count; i++) {
+                int result = worker.results[i];
+                if (result == SAME_TABLE) {
+                    continue;
+                }
+                if (result == EN_PASSANT) {
+                    marks.set(index, EVERY_PLY);
+                    lastTrigger.accumulate(horizon(enPassant(worker, i), 1 - side, 2));
+                    continue;
+                }
+                leavesTable = true;
+                if (Tablebase.isLoss(result)) {
+                    win = Math.min(win, Tablebase.distance(result) + 1);
+                }
+                else if (Tablebase.isWin(result)) {
+                    loss = Math.max(loss, Tablebase.distance(result) + 1);
+                }
+                else {
+                    escapes = true;
+                }
+            }
+            int trigger = (win != Integer.MAX_VALUE) ? win : (leavesTable && !escapes) ? loss : 0;
+            if (trigger > MAX_DISTANCE) {
+                throw new IllegalStateException("Mates in " + material + " are longer than " + MAX_DISTANCE + " plies.");
+            }
+            if (trigger > 0) {
+                triggers.set(index, trigger);
+                lastTrigger.accumulate(trigger);
+            }
+        }
+
+        // the side that just moved is to move in the predecessors
+        private void markPredecessors(long index, Worker worker) {
+            int[] squares = worker.squares;
+            int mover = 1 - material.decode(index, squares);
+            Color color = color(mover);
+            long occupied = occupancy(squares);
+            int[] predecessor = worker.successor;
+            System.arraycopy(squares, 0, predecessor, 0, material.getMen());
+            for (int i = 0; i < material.getMen(); i++) {
+                if (material.getColor(i) != color) {
+                    continue;
+                }
+                int square = squares[i];
+                long origins;
+                if (material.getType(i) == PieceType.PAWN) {
+                    int back = (color == Color.WHITE) ? 8 : -8;
+                    int row = square >>> 3;
+                    origins = 0;
+                    if ((color == Color.WHITE) ? row <= 5 : row >= 2) {
+                        origins = (1L << (square + back)) & ~occupied;
+                        // a double push that can be taken en passant does not lead here
+                        if (origins != 0 && row == ((color == Color.WHITE) ? 4 : 3) && !allowsEnPassant(squares, i)) {
+                            origins |= (1L << (square + 2 * back)) & ~occupied;
+                        }
+                    }
+                }
+                else {
+                    origins = attacks(material.getType(i), color, square, occupied) & ~occupied;
+                }
+                while (origins != 0) {
+                    predecessor[i] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    mark(material.index(predecessor, mover));
+                    mark(material.diagonalIndex(predecessor, mover));
+                }
+                predecessor[i] = square;
+            }
+        }
+
+        private void mark(long index) {
+            if (index >= 0 && values.get(index) == Tablebase.DRAW && marks.get(index) != EVERY_PLY) {
+                marks.set(index, ply);
+            }
+        }
+
+        private void verify(long index, Worker worker) {
+            int result = evaluate(worker, material.decode(index, worker.squares), ply);
+            if (((ply & 1) != 0) ? Tablebase.isWin(result) : Tablebase.isLoss(result)) {
+                values.set(index, Tablebase.code(ply));
+                decided.increment();
+            }
+        }
+
+        // the result for the side to move in the worker's position from the successors known to be
+        // decided in fewer plies than the limit; DRAW while that leaves it open
+        private int evaluate(Worker worker, int side, int limit) {
+            int count = successors(worker, side);
+            int win = Integer.MAX_VALUE;
+            int loss = 0;
+            boolean open = count == 0;
+            for (int i = 0; i < count; i++) {
+                int result;
+                if (worker.results[i] == SAME_TABLE) {
+                    result = values.get(worker.targets[i]);
+                }
+                else if (worker.results[i] == EN_PASSANT) {
+                    result = evaluate(enPassant(worker, i), 1 - side, limit - 1);
+                }
+                else {
+                    result = worker.results[i];
+                }
+
+                if (Tablebase.isLoss(result) && Tablebase.distance(result) < limit) {
+                    win = Math.min(win, Tablebase.distance(result) + 1);
+                }
+                else if (Tablebase.isWin(result) && Tablebase.distance(result) < limit) {
+                    loss = Math.max(loss, Tablebase.distance(result) + 1);
+                }
+                else {
+                    open = true;
+                }
+            }
+            return (win != Integer.MAX_VALUE) ? Tablebase.code(win) : open ? Tablebase.DRAW : Tablebase.code(loss);
+        }
+
+        // the last ply at which a result read from a smaller table behind an en passant successor
+        // can decide the position depth plies before it
+        private int horizon(Worker worker, int side, int depth) {
+            enPassantDepth.accumulate(depth - 1);
+            int count = successors(worker, side);
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                int result = worker.results[i];
+                if (result == EN_PASSANT) {
+                    last = Math.max(last, horizon(enPassant(worker, i), 1 - side, depth + 1));
+                }
+                else if (result != SAME_TABLE && result != Tablebase.DRAW) {
+                    last = Math.max(last, Tablebase.distance(result) + depth);
+                }
+            }
+            return last;
+        }
+
+        // the position after the double push of successor i, with the en passant capture allowed
+        private Worker enPassant(Worker worker, int i) {
+            Worker next = worker.next();
+            int pawn = (int) worker.targets[i];
+            System.arraycopy(worker.squares, 0, next.squares, 0, material.getMen());
+            next.squares[pawn] += (material.getColor(pawn) == Color.WHITE) ? -16 : 16;
+            next.enPassant = pawn;
+            return next;
+        }
+
+        // fills the worker with every legal move's successor: an index into this table, the result
+        // read from a smaller table after a capture or a promotion, or for a double push that can be
+        // taken en passant the pawn's index
+        private int successors(Worker worker, int side) {
+            int[] squares = worker.squares;
+            Color color = color(side);
+            int men = material.getMen();
+            long occupied = occupancy(squares);
+            long own = 0;
+            for (int i = 0; i < men; i++) {
+                if (material.getColor(i) == color) {
+                    own |= 1L << squares[i];
+                }
+            }
+
+            int count = 0;
+            for (int i = 0; i < men; i++) {
+                if (material.getColor(i) != color) {
+                    continue;
+                }
+                int from = squares[i];
+                PieceType type = material.getType(i);
+                long targets;
+                if (type == PieceType.PAWN) {
+                    int forward = (color == Color.WHITE) ? -8 : 8;
+                    targets = Attacks.pawn(color, from) & occupied & ~own;
+                    long push = (1L << (from + forward)) & ~occupied;
+                    targets |= push;
+                    if (push != 0 && (from >>> 3) == ((color == Color.WHITE) ? 6 : 1)) {
+                        targets |= (1L << (from + 2 * forward)) & ~occupied;
+                    }
+                }
+                else {
+                    targets = attacks(type, color, from, occupied) & ~own;
+                }
+
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int captured = -1;
+                    if ((occupied & ~own & (1L << to)) != 0) {
+                        for (int j = 0; j < men; j++) {
+                            if (squares[j] == to) {
+                                captured = j;
+                            }
+                        }
+                    }
+                    squares[i] = to;
+                    long after = (occupied & ~(1L << from)) | (1L << to);
+                    boolean legal = !isAttacked(squares, side, captured, after);
+                    squares[i] = from;
+                    if (!legal) {
+                        continue;
+                    }
+
+                    if (type == PieceType.PAWN && isPromotionRow(color, to)) {
+                        for (PieceType promotion : PROMOTIONS) {
+                            worker.results[count++] = probe(worker, side, i, to, captured, promotion);
+                        }
+                    }
+                    else if (captured >= 0) {
+                        worker.results[count++] = probe(worker, side, i, to, captured, type);
+                    }
+                    else {
+                        System.arraycopy(squares, 0, worker.successor, 0, men);
+                        worker.successor[i] = to;
+                        if (type == PieceType.PAWN && Math.abs(to - from) == 16 && allowsEnPassant(worker.successor, i)) {
+                            worker.targets[count] = i;
+                            worker.results[count++] = EN_PASSANT;
+                        }
+                        else {
+                            worker.targets[count] = material.index(worker.successor, 1 - side);
+                            worker.results[count++] = SAME_TABLE;
+                        }
+                    }
+                }
+            }
+
+            int pawn = worker.enPassant;
+            if (pawn >= 0) {
+                int to = squares[pawn] + ((color == Color.WHITE) ? -8 : 8);
+                for (int i = 0; i < men; i++) {
+                    if (material.getColor(i) == color && material.getType(i) == PieceType.PAWN
+                            && (Attacks.pawn(color, squares[i]) & (1L << to)) != 0 && capturesEnPassant(squares, i, pawn)) {
+                        worker.results[count++] = probe(worker, side, i, to, pawn, PieceType.PAWN);
+                    }
+                }
+            }
+            return count;
+        }
+
+        // whether the pawn, just after a double push, can be taken en passant
+        private boolean allowsEnPassant(int[] squares, int pawn) {
+            Color enemy = (material.getColor(pawn) == Color.WHITE) ? Color.BLACK : Color.WHITE;
+            int passed = squares[pawn] + ((enemy == Color.WHITE) ? -8 : 8);
+            for (int i = 2; i < material.getMen(); i++) {
+                if (material.getColor(i) == enemy && material.getType(i) == PieceType.PAWN
+                        && (Attacks.pawn(enemy, squares[i]) & (1L << passed)) != 0 && capturesEnPassant(squares, i, pawn)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // whether taking the pawn en passant leaves the capturing side's king safe
+        private boolean capturesEnPassant(int[] squares, int capturer, int pawn) {
+            int side = (material.getColor(capturer) == Color.WHITE) ? 0 : 1;
+            int from = squares[capturer];
+            int to = squares[pawn] + ((side == 0) ? -8 : 8);
+            long after = (occupancy(squares) & ~(1L << from) & ~(1L << squares[pawn])) | (1L << to);
+            squares[capturer] = to;
+            boolean legal = !isAttacked(squares, side, pawn, after);
+            squares[capturer] = from;
+            return legal;
+        }
+
+        private int probe(Worker worker, int side, int moved, int to, int captured, PieceType type) {
+            long[] pieces = worker.pieces;
+            for (int i = 0; i < pieces.length; i++) {
+                pieces[i] = 0;
+            }
+            for (int i = 0; i < material.getMen(); i++) {
+                if (i != captured) {
+                    PieceType t = (i == moved) ? type : material.getType(i);
+                    pieces[material.getColor(i).ordinal() * 6 + t.ordinal()] |= 1L << ((i == moved) ? to : worker.squares[i]);
+                }
+            }
+            int result = tablebase.probe(pieces, color(1 - side), worker.probeSquares);
+            if (result == Tablebase.UNKNOWN) {
+                throw new IllegalStateException("No table result for a successor of " + material + ".");
+            }
+            return result;
+        }
+
+        // all squares distinct, no pawn on a back rank and the side that just moved not in check
+        private boolean isLegal(int[] squares, int side) {
+            long occupied = occupancy(squares);
+            if (Long.bitCount(occupied) != material.getMen()) {
+                return false;
+            }
+            for (int i = 2; i < material.getMen(); i++) {
+                if (material.getType(i) == PieceType.PAWN && ((squares[i] >>> 3) == 0 || (squares[i] >>> 3) == 7)) {
+                    return false;
+                }
+            }
+            return !isAttacked(squares, 1 - side, -1, occupied);
+        }
+
+        // whether the king of the given side is attacked by the other side's pieces, ignoring a captured one
+        private boolean isAttacked(int[] squares, int kingSide, int captured, long occupied) {
+            int king = squares[kingSide];
+            Color attacker = color(1 - kingSide);
+            for (int i = 0; i < material.getMen(); i++) {
+                if (i != captured && material.getColor(i) == attacker
+                        && (attacks(material.getType(i), attacker, squares[i], occupied) & (1L << king)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long occupancy(int[] squares) {
+            long occupied = 0;
+            for (int i = 0; i < material.getMen(); i++) {
+                occupied |= 1L << squares[i];
+            }
+            return occupied;
+        }
+    }
+
+    private static class Worker {
+        final int[] squares = new int[Material.MAX_MEN];
+        final int[] successor = new int[Material.MAX_MEN];
+        final int[] probeSquares = new int[Material.MAX_MEN];
+        final long[] pieces = new long[12];
+        final long[] targets = new long[MAX_SUCCESSORS];
+        final int[] results = new int[MAX_SUCCESSORS];
+        int enPassant = -1;
+        private Worker next;
+
+
+        // a worker for the positions behind this one's en passant successors
+        Worker next() {
+            if (next == null) {
+                next = new Worker();
+            }
+            return next;
+        }
+    }
+
+    private static class PassTask extends RecursiveAction {
+
+        private final Generation generation;
+        private final int pass;
+        private final long from;
+        private final long to;
+
+
+        PassTask(Generation generation, int pass, long from, long to) {
+            this.generation = generation;
+            this.pass = pass;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                generation.pass(pass, from, to);
+                return;
+            }
+            long middle = (from + to) >>> 1;
+            invokeAll(new PassTask(generation, pass, from, middle), new PassTask(generation, pass, middle, to));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package chess.tablebase;
+
+public class TablebaseReport {
+
+    private final String signature;
+    private final long positions;
+    private final long wins;
+    private final long draws;
+    private final long losses;
+    private final int longestMate;
+    private final long bytes;
+    private final long nanos;
+
+
+    public TablebaseReport(String signature, long positions, long wins, long draws, long losses, int longestMate,
+            long bytes, long nanos) {
+        this.signature = signature;
+        this.positions = positions;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+        this.longestMate = longestMate;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+
+    public String getSignature() { return signature; }
+    public long getPositions() { return positions; }
+    public long getWins() { return wins; }
+    public long getDraws() { return draws; }
+    public long getLosses() { return losses; }
+    public long getBytes() { return bytes; }
+    public long getNanos() { return nanos; }
+
+    // the longest distance to mate in plies
+    public int getLongestMate() { return longestMate; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d positions (%,d wins, %,d draws, %,d losses), longest mate %d plies, %,d bytes in %.3f s",
+                signature, positions, wins, draws, losses, longestMate, bytes, nanos / 1e9);
+    }
+}
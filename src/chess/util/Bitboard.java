@@ -0,0 +1,54 @@
+package chess.util;
+
+import boardgame.Position;
+
+public class Bitboard {
+
+    public static final long EMPTY = 0L;
+
+    public static int square(int row, int column) {
+        return (row << 3) | column;
+    }
+
+    public static int square(Position position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean contains(long bitboard, int square) {
+        return (bitboard & bit(square)) != 0;
+    }
+
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+
+    public static Position toPosition(int square) {
+        return new Position(row(square), column(square));
+    }
+
+    public static boolean[][] toMatrix(long bitboard) {
+        boolean[][] matrix = new boolean[8][8];
+        while (bitboard != 0) {
+            int square = first(bitboard);
+            matrix[row(square)][column(square)] = true;
+            bitboard &= bitboard - 1;
+        }
+        return matrix;
+    }
+}